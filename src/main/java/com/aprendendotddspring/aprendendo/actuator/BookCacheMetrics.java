@@ -0,0 +1,39 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import com.aprendendotddspring.aprendendo.config.CacheRegionStatistics;
+import com.aprendendotddspring.aprendendo.config.LibraryCacheRegionFactory;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Taxa de acerto das regioes de cache de livros ({@code library.book.cache.hit.ratio}),
+ * contada pelo {@link LibraryCacheRegionFactory} no acesso do Hibernate a cada regiao.
+ * Assim nao depende de hibernate.generate_statistics, que conta todas as sessoes.
+ */
+@Component
+public class BookCacheMetrics implements MeterBinder {
+
+    private final LibraryCacheRegionFactory regionFactory;
+
+    public BookCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.regionFactory = (LibraryCacheRegionFactory) sessionFactory.getCache().getRegionFactory();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String region : new String[]{Book.CACHE_REGION, BookRepository.ISBN_CACHE_REGION}) {
+            Gauge.builder("library.book.cache.hit.ratio", regionFactory.getRegionStatistics(region),
+                            CacheRegionStatistics::getHitRatio)
+                    .tag("region", region)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuracao e ocupacao do pool de conexoes Hikari: conexoes ativas,
+ * ociosas, threads esperando e o tempo de espera por uma conexao (a partir
+ * das metricas hikaricp.connections.*, que tambem vao para /actuator/prometheus
+ * com histograma).
+ */
+@Component
+@Endpoint(id = "connectionpool")
+public class ConnectionPoolEndpoint {
+
+    private final HikariDataSource dataSource;
+    private final MeterRegistry registry;
+
+    public ConnectionPoolEndpoint(DataSource dataSource, MeterRegistry registry) throws SQLException {
+        // o DataSource do contexto e o proxy do SqlProfiler
+        this.dataSource = dataSource.unwrap(HikariDataSource.class);
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> connectionPool() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pool", dataSource.getPoolName());
+        report.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+        report.put("minimumIdle", dataSource.getMinimumIdle());
+        report.put("connectionTimeoutMillis", dataSource.getConnectionTimeout());
+        report.put("leakDetectionThresholdMillis", dataSource.getLeakDetectionThreshold());
+
+        // o pool so existe depois da primeira conexao
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        report.put("active", pool == null ? 0 : pool.getActiveConnections());
+        report.put("idle", pool == null ? 0 : pool.getIdleConnections());
+        report.put("total", pool == null ? 0 : pool.getTotalConnections());
+        report.put("pending", pool == null ? 0 : pool.getThreadsAwaitingConnection());
+
+        Timer acquire = registry.find("hikaricp.connections.acquire").tag("pool", dataSource.getPoolName()).timer();
+        if (acquire != null) {
+            Map<String, Object> wait = new LinkedHashMap<>();
+            wait.put("count", acquire.count());
+            wait.put("meanMillis", acquire.mean(TimeUnit.MILLISECONDS));
+            wait.put("maxMillis", acquire.max(TimeUnit.MILLISECONDS));
+            report.put("acquire", wait);
+        }
+        Counter timeouts = registry.find("hikaricp.connections.timeout").tag("pool", dataSource.getPoolName()).counter();
+        report.put("timeouts", timeouts == null ? 0 : (long) timeouts.count());
+        return report;
+    }
+}
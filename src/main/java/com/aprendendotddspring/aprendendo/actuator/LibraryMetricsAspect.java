@@ -0,0 +1,113 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tempo de cada metodo dos services ({@code library.service}) e dos repositories
+ * ({@code library.repository}), com histograma de percentis para o Prometheus, e
+ * as rejeicoes de negocio ({@code library.business.rejections}) por motivo.
+ * O ReactiveCatalogService fica de fora: o metodo so monta o Mono/Flux, o
+ * trabalho acontece depois, na assinatura.
+ */
+@Aspect
+@Component
+public class LibraryMetricsAspect {
+
+    public static final String SERVICE_TIMER = "library.service";
+    public static final String REPOSITORY_TIMER = "library.repository";
+    public static final String REJECTIONS = "library.business.rejections";
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    // a mesma excecao atravessa varios services aninhados; conta so na primeira vez
+    private final ThreadLocal<WeakReference<Throwable>> lastRejection = new ThreadLocal<>();
+
+    public LibraryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Pointcut("(execution(public * com.aprendendotddspring.aprendendo.service.impl.*ServiceImpl.*(..))"
+            + " || execution(public * com.aprendendotddspring.aprendendo.service.ScheduleService.*(..)))"
+            + " && !within(com.aprendendotddspring.aprendendo.service.impl.ReactiveCatalogServiceImpl)")
+    void service() {
+    }
+
+    // metodos herdados (findById, saveAndFlush) sao do JpaRepository, entao casa por qualquer Repository
+    @Pointcut("execution(* org.springframework.data.repository.Repository+.*(..))")
+    void repository() {
+    }
+
+    @Around("service()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName();
+        return time(SERVICE_TIMER, "class", type, joinPoint);
+    }
+
+    @Around("repository()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), LibraryMetricsAspect::repositoryName);
+        return time(REPOSITORY_TIMER, "repository", type, joinPoint);
+    }
+
+    private Object time(String name, String typeTag, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        String exception = NONE;
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            if (e instanceof BusinessException) {
+                countRejection((BusinessException) e);
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag(typeTag, type)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry));
+        }
+    }
+
+    private void countRejection(BusinessException e) {
+        WeakReference<Throwable> last = lastRejection.get();
+        if (last != null && last.get() == e) {
+            return;
+        }
+        lastRejection.set(new WeakReference<>(e));
+        Counter.builder(REJECTIONS)
+                .tag("reason", String.valueOf(e.getMessage()))
+                .register(registry)
+                .increment();
+    }
+
+    /** Nome da interface do repository, ja que a classe e um proxy do Spring Data. */
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(proxyClass)) {
+            if (Repository.class.isAssignableFrom(type) && type.getName().startsWith("com.aprendendotddspring")) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
@@ -0,0 +1,180 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Envolve o DataSource com o datasource-proxy e mede cada statement JDBC:
+ * quantos e quanto tempo por endpoint (cada requisicao e delimitada pelo
+ * SqlProfilerFilter), o total por SQL e o log, com os parametros, das
+ * consultas acima de application.sql.profiler.slow-query-threshold ms.
+ * Os agregados ficam em /actuator/sqlprofile.
+ */
+@Slf4j
+@Component
+public class SqlProfiler implements BeanPostProcessor, QueryExecutionListener {
+
+    /** Limite de SQLs distintos guardados, para consultas com "in (?, ?...)" variavel nao crescerem sem fim. */
+    private static final int MAX_QUERIES = 500;
+
+    private final long slowQueryThreshold;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final Map<String, Aggregate> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Aggregate> queries = new ConcurrentHashMap<>();
+
+    public SqlProfiler(@Value("${application.sql.profiler.slow-query-threshold:200}") long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create((DataSource) bean)
+                    .name(beanName)
+                    .listener(this)
+                    .build();
+        }
+        return bean;
+    }
+
+    /** Comeca a contar os statements da thread atual, ate o {@link #end}. */
+    public Scope begin() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    public void end(Scope scope, String endpoint) {
+        current.set(scope.parent);
+        if (scope.parent != null) {
+            scope.parent.statements += scope.statements;
+            scope.parent.millis += scope.millis;
+        }
+        endpoints.computeIfAbsent(endpoint, key -> new Aggregate())
+                .add(scope.statements, scope.millis);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        Scope scope = current.get();
+        if (scope != null) {
+            scope.statements++;
+            scope.millis += elapsed;
+        }
+
+        for (QueryInfo queryInfo : queryInfoList) {
+            Aggregate aggregate = queries.get(queryInfo.getQuery());
+            if (aggregate == null && queries.size() < MAX_QUERIES) {
+                aggregate = queries.computeIfAbsent(queryInfo.getQuery(), key -> new Aggregate());
+            }
+            if (aggregate != null) {
+                aggregate.add(1, elapsed);
+            }
+        }
+
+        if (elapsed >= slowQueryThreshold) {
+            log.warn("slow query ({} ms): {}", elapsed, logEntryCreator.getLogEntry(execInfo, queryInfoList, false, true));
+        }
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    /** Statements por requisicao de cada endpoint, pelo nome do metodo do controller. */
+    public Map<String, Stats> getEndpoints() {
+        return new TreeMap<>(endpoints.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stats())));
+    }
+
+    /** Os SQLs que mais somaram tempo, do maior para o menor. */
+    public Map<String, Stats> getQueries(int limit) {
+        return queries.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Aggregate> entry) -> entry.getValue().totalMillis.sum())
+                        .reversed())
+                .limit(limit)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().stats(),
+                        (first, second) -> first, LinkedHashMap::new));
+    }
+
+    public void reset() {
+        endpoints.clear();
+        queries.clear();
+    }
+
+    @Getter
+    public static class Scope {
+        @Getter(AccessLevel.NONE)
+        private final Scope parent;
+        private long statements;
+        private long millis;
+
+        Scope(Scope parent) {
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Para endpoints, count e o numero de requisicoes e statements/maxStatements
+     * os statements de cada uma; para SQLs, count e o numero de execucoes.
+     */
+    private static class Aggregate {
+        final LongAdder count = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        final LongAdder totalMillis = new LongAdder();
+        final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+
+        void add(long statementCount, long millis) {
+            count.increment();
+            statements.add(statementCount);
+            maxStatements.accumulate(statementCount);
+            totalMillis.add(millis);
+            maxMillis.accumulate(millis);
+        }
+
+        Stats stats() {
+            return new Stats(count.sum(), statements.sum(), maxStatements.get(), totalMillis.sum(), maxMillis.get());
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Stats {
+        private long count;
+        private long statements;
+        private long maxStatements;
+        private long totalMillis;
+        private long maxMillis;
+    }
+}
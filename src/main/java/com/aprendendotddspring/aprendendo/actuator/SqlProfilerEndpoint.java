@@ -0,0 +1,34 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "sqlprofile")
+@RequiredArgsConstructor
+public class SqlProfilerEndpoint {
+
+    private static final int TOP_QUERIES = 50;
+
+    private final SqlProfiler profiler;
+
+    @ReadOperation
+    public Map<String, Object> sqlProfile() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("slowQueryThresholdMillis", profiler.getSlowQueryThreshold());
+        report.put("endpoints", profiler.getEndpoints());
+        report.put("queries", profiler.getQueries(TOP_QUERIES));
+        return report;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
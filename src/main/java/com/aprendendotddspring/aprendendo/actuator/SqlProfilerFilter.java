@@ -0,0 +1,56 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Delimita cada requisicao para o SqlProfiler, incluindo a serializacao da
+ * resposta. O endpoint e identificado pelo metodo do controller que atendeu
+ * (BookController.loanByBook); endpoints do actuator e requisicoes sem
+ * controller, pelo metodo HTTP e o padrao da URI; as que nao casam com
+ * nenhum padrao ficam todas em "METODO UNMAPPED".
+ */
+public class SqlProfilerFilter extends OncePerRequestFilter {
+
+    private static final String UNMAPPED = "UNMAPPED";
+
+    private final SqlProfiler profiler;
+
+    public SqlProfilerFilter(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlProfiler.Scope scope = profiler.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            profiler.end(scope, endpoint(request));
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod
+                && AnnotatedElementUtils.hasAnnotation(((HandlerMethod) handler).getBeanType(), Controller.class)) {
+            HandlerMethod method = (HandlerMethod) handler;
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        // sem padrao (404, scanners) a URI crua faria o mapa de endpoints crescer sem limite
+        String method = HttpMethod.resolve(request.getMethod()) != null ? request.getMethod() : "OTHER";
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return method + " " + (pattern != null ? pattern : UNMAPPED);
+    }
+}
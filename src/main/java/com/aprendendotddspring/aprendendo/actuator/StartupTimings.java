@@ -0,0 +1,161 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Mede o tempo de criacao de cada bean (com e sem as dependencias criadas
+ * dentro dele), de cada CommandLineRunner/ApplicationRunner e das tarefas
+ * de startup assincronas, para o endpoint /actuator/startuptimes.
+ */
+@Component
+public class StartupTimings implements InstantiationAwareBeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final List<BeanTiming> beans = new CopyOnWriteArrayList<>();
+    private final List<Timing> runners = new CopyOnWriteArrayList<>();
+    private final List<Timing> tasks = new CopyOnWriteArrayList<>();
+
+    private volatile Long readyMillis;
+    // depois do startup (beans prototype, de request...) nada mais e medido
+    private volatile boolean ready;
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        if (ready) {
+            return null;
+        }
+        creating.get().push(new Frame(beanName, beanClass.getName(), System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (ready) {
+            return bean;
+        }
+        Deque<Frame> stack = creating.get();
+        if (!stack.isEmpty() && stack.peek().name.equals(beanName)) {
+            Frame frame = stack.pop();
+            long total = System.nanoTime() - frame.start;
+            if (!stack.isEmpty()) {
+                stack.peek().children += total;
+            }
+            beans.add(new BeanTiming(beanName, frame.type, millis(total), millis(total - frame.children)));
+        }
+
+        if (bean instanceof CommandLineRunner || bean instanceof ApplicationRunner) {
+            return timedRunner(bean, beanName);
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        readyMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        ready = true;
+        creating.remove();
+    }
+
+    /** Executa e registra o tempo de uma tarefa de startup, mesmo se ela falhar. */
+    public void task(String name, Runnable task) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            task.run();
+            success = true;
+        } finally {
+            tasks.add(new Timing(name, millis(System.nanoTime() - start), success));
+        }
+    }
+
+    public Long getReadyMillis() {
+        return readyMillis;
+    }
+
+    /** Beans do mais lento para o mais rapido pelo tempo proprio. */
+    public List<BeanTiming> getBeans() {
+        return beans.stream()
+                .sorted(Comparator.comparingDouble(BeanTiming::getSelfMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public List<Timing> getRunners() {
+        return new ArrayList<>(runners);
+    }
+
+    public List<Timing> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    private Object timedRunner(Object runner, String beanName) {
+        ProxyFactory factory = new ProxyFactory(runner);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            if (!invocation.getMethod().getName().equals("run")) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                Object result = invocation.proceed();
+                success = true;
+                return result;
+            } finally {
+                runners.add(new Timing(beanName, millis(System.nanoTime() - start), success));
+            }
+        });
+        return factory.getProxy(runner.getClass().getClassLoader());
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000d) / 100d;
+    }
+
+    private static class Frame {
+        final String name;
+        final String type;
+        final long start;
+        long children;
+
+        Frame(String name, String type, long start) {
+            this.name = name;
+            this.type = type;
+            this.start = start;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BeanTiming {
+        private String name;
+        private String type;
+        private double totalMillis;
+        private double selfMillis;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Timing {
+        private String name;
+        private double millis;
+        private boolean success;
+    }
+}
@@ -0,0 +1,27 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "startuptimes")
+@RequiredArgsConstructor
+public class StartupTimingsEndpoint {
+
+    private final StartupTimings timings;
+
+    @ReadOperation
+    public Map<String, Object> startupTimes() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("readyMillis", timings.getReadyMillis());
+        report.put("runners", timings.getRunners());
+        report.put("tasks", timings.getTasks());
+        report.put("beans", timings.getBeans());
+        return report;
+    }
+}
@@ -2,6 +2,7 @@ package com.aprendendotddspring.aprendendo.api;
 
 import com.aprendendotddspring.aprendendo.api.exceptions.ApiErrors;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.api.exceptions.ServiceUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -31,6 +32,12 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(ex);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiErrors handleServiceUnavailableException(ServiceUnavailableException ex){
+        return new ApiErrors(ex);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusExcpection(ResponseStatusException ex){
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
@@ -0,0 +1,20 @@
+package com.aprendendotddspring.aprendendo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportErrorDTO {
+
+    /** Posicao da linha na entrada, a partir de 1 (elemento do array JSON ou linha do NDJSON/CSV). */
+    private long row;
+
+    private String isbn;
+
+    private String message;
+}
@@ -0,0 +1,26 @@
+package com.aprendendotddspring.aprendendo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookImportReportDTO {
+
+    private long received;
+
+    private long imported;
+
+    private long rejected;
+
+    /** Erros por linha, limitados a application.books.import.max-reported-errors; rejected traz o total. */
+    @Builder.Default
+    private List<BookImportErrorDTO> errors = new ArrayList<>();
+}
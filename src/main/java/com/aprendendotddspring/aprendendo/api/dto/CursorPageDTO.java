@@ -0,0 +1,22 @@
+package com.aprendendotddspring.aprendendo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    /** id a ser enviado como cursor na proxima pagina, nulo na ultima. */
+    private Long nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.aprendendotddspring.aprendendo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReturnedLoansDTO {
+
+    @NotEmpty
+    private List<Long> ids;
+
+}
@@ -0,0 +1,25 @@
+package com.aprendendotddspring.aprendendo.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReturnedLoansReportDTO {
+
+    private int returned;
+
+    @Builder.Default
+    private List<Long> notFound = new ArrayList<>();
+
+    @Builder.Default
+    private List<Long> alreadyReturned = new ArrayList<>();
+
+}
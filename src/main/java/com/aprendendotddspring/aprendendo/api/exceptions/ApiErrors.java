@@ -24,6 +24,10 @@ public class ApiErrors {
         this.errors = Arrays.asList(ex.getMessage());
     }
 
+    public ApiErrors(ServiceUnavailableException ex) {
+        this.errors = Arrays.asList(ex.getMessage());
+    }
+
     public ApiErrors(ResponseStatusException ex) {
         this.errors = Arrays.asList(ex.getReason());
     }
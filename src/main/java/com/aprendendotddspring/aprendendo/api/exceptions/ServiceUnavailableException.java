@@ -0,0 +1,7 @@
+package com.aprendendotddspring.aprendendo.api.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String mensagemErro) {
+        super(mensagemErro);
+    }
+}
@@ -0,0 +1,53 @@
+package com.aprendendotddspring.aprendendo.api.mapper;
+
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+
+/**
+ * Conversoes entre entidades e DTOs escritas a mao, sem reflexao.
+ * Substitui o ModelMapper nos controllers; mantenha os campos em sincronia
+ * quando Book, Loan ou os DTOs mudarem.
+ */
+public class DtoMapper {
+
+    public Book toEntity(BooktDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        return Book.builder()
+                .id(dto.getId())
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .build();
+    }
+
+    public BooktDTO toDto(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BooktDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    public LoanDTO toDto(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        return LoanDTO.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .email(loan.getCustomerEmail())
+                .book(toDto(loan.getBook()))
+                .build();
+    }
+
+    public LoanFilterDTO toFilter(LoanDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        return new LoanFilterDTO(dto.getIsbn(), dto.getCustomer());
+    }
+}
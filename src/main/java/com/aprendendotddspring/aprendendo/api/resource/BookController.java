@@ -1,8 +1,10 @@
 package com.aprendendotddspring.aprendendo.api.resource;
 
 import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.CursorPageDTO;
 import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.ApiErrors;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
@@ -14,15 +16,16 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
@@ -38,7 +41,7 @@ import java.util.stream.Collectors;
 public class BookController {
 
 
-    private final ModelMapper modelMapper;
+    private final DtoMapper mapper;
     private final BookService service;
     private final LoanService loanService;
 
@@ -48,21 +51,26 @@ public class BookController {
     public BooktDTO create(@RequestBody @Valid  BooktDTO dto){
         log.info("creatting a book for isbn: {}", dto.getIsbn());
 
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = mapper.toEntity(dto);
+        // sempre um livro novo: com a versao nula um id vindo no corpo faria o insert falhar
+        entity.setId(null);
 
         entity = service.save(entity);
 
-        return modelMapper.map(entity, BooktDTO.class);
+        return mapper.toDto(entity);
     }
 
     @GetMapping("{id}")
     @ApiOperation("Obtem um livro details by id")
-    public BooktDTO get(@PathVariable Long id){
+    public BooktDTO get(@PathVariable Long id, WebRequest request){
         log.info("get book of id: {}", id);
 
-        return service.getById(id)
-                .map( book ->  modelMapper.map(book, BooktDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        // 304 sem corpo quando o cliente ja tem esta versao
+        if (request.checkNotModified(BookEtags.of(book), BookEtags.lastModified(book))) {
+            return null;
+        }
+        return mapper.toDto(book);
     }
 
     @DeleteMapping("{id}")
@@ -86,37 +94,71 @@ public class BookController {
 
             book = service.update(book);
 
-            return modelMapper.map(book, BooktDTO.class);
+            return mapper.toDto(book);
         }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping
-    public Page<BooktDTO> find(BooktDTO dto, Pageable pageRequest){
-        Book filter = modelMapper.map(dto, Book.class);
+    public Page<BooktDTO> find(BooktDTO dto, Pageable pageRequest, WebRequest request){
+        Book filter = mapper.toEntity(dto);
         Page<Book> result = service.find(filter, pageRequest);
+        // so ETag: o Last-Modified de uma pagina nao enxerga livros removidos dela
+        if (request.checkNotModified(BookEtags.of(result))) {
+            return null;
+        }
         List<BooktDTO> list = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BooktDTO.class))
+                .map(mapper::toDto)
                 .collect(Collectors.toList());
 
         return new PageImpl<BooktDTO>(list, pageRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = {"count=false", "!cursor"})
+    @ApiOperation("Filtra livros sem calcular o total de elementos")
+    public Slice<BooktDTO> findSlice(BooktDTO dto, Pageable pageRequest){
+        Book filter = mapper.toEntity(dto);
+        return service.findSlice(filter, pageRequest).map(mapper::toDto);
+    }
+
+    @GetMapping(params = "cursor")
+    @ApiOperation("Filtra livros paginando pelo id (keyset), sem count")
+    public CursorPageDTO<BooktDTO> findByCursor(BooktDTO dto,
+                                                @RequestParam(required = false) Long cursor,
+                                                Pageable pageRequest){
+        Book filter = mapper.toEntity(dto);
+        Slice<Book> result = service.findAfter(filter, cursor, pageRequest.getPageSize());
+        List<BooktDTO> list = result.getContent().stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+
+        Long nextCursor = result.hasNext() ? list.get(list.size() - 1).getId() : null;
+        return new CursorPageDTO<BooktDTO>(list, pageRequest.getPageSize(), nextCursor);
+    }
+
+    @GetMapping("search")
+    @ApiOperation("Busca textual por titulo, autor e isbn, ordenada por relevancia")
+    public Page<BooktDTO> search(@RequestParam("q") String text, Pageable pageRequest){
+        return service.search(text, pageRequest).map(mapper::toDto);
+    }
+
     @GetMapping("{id}/loans")
     public Page<LoanDTO> loanByBook(@PathVariable Long id, Pageable pageable){
         Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         Page<Loan> result = loanService.getLoansByBook(book, pageable);
         List<LoanDTO> list = result.getContent()
-                .stream().map(
-                        loan -> {
-                            Book loanBook = loan.getBook();
-                            BooktDTO bookDTO = modelMapper.map(loanBook, BooktDTO.class);
-                            LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                            loanDTO.setBook(bookDTO);
-                            return loanDTO;
-                        }).collect(Collectors.toList());
+                .stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(list, pageable, result.getTotalElements());
     }
 
+    @GetMapping(value = "{id}/loans", params = "count=false")
+    public Slice<LoanDTO> loanSliceByBook(@PathVariable Long id, Pageable pageable){
+        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        return loanService.getLoanSliceByBook(book, pageable).map(mapper::toDto);
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ETags fortes das respostas de livros, calculados a partir de id e versao,
+ * sem mapear nem serializar o DTO.
+ */
+final class BookEtags {
+
+    private BookEtags() {
+    }
+
+    static String of(Book book) {
+        return "\"" + book.getId() + "-" + version(book) + "\"";
+    }
+
+    /** Muda quando um livro da pagina muda, entra ou sai, ou quando o total muda. */
+    static String of(Page<Book> page) {
+        StringBuilder content = new StringBuilder()
+                .append(page.getNumber()).append('/')
+                .append(page.getSize()).append('/')
+                .append(page.getSort()).append('/')
+                .append(page.getTotalElements());
+        for (Book book : page) {
+            content.append(';').append(book.getId()).append('-').append(version(book));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /** Em milissegundos, ou -1 quando desconhecido (sem Last-Modified). */
+    static long lastModified(Book book) {
+        return book.getLastModified() == null ? -1 : book.getLastModified().toEpochMilli();
+    }
+
+    private static long version(Book book) {
+        return book.getVersion() == null ? 0 : book.getVersion();
+    }
+}
@@ -0,0 +1,56 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
+import com.aprendendotddspring.aprendendo.service.BookImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/books/import")
+@Api("Book API")
+@Slf4j
+public class BookImportController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private final BookImportService service;
+    private final BookImportReader reader;
+
+    public BookImportController(BookImportService service, ObjectMapper objectMapper, Validator validator, DtoMapper mapper) {
+        this.service = service;
+        this.reader = new BookImportReader(objectMapper, validator, mapper);
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Importa livros de um array JSON")
+    public BookImportReportDTO importJson(InputStream body) throws IOException {
+        log.info("importing books from json");
+        return service.importBooks(reader.json(body));
+    }
+
+    @PostMapping(consumes = NDJSON)
+    @ApiOperation("Importa livros de um NDJSON, um livro por linha")
+    public BookImportReportDTO importNdjson(InputStream body) {
+        log.info("importing books from ndjson");
+        return service.importBooks(reader.ndjson(body));
+    }
+
+    @PostMapping(consumes = CSV)
+    @ApiOperation("Importa livros de um CSV com cabeçalho title,author,isbn")
+    public BookImportReportDTO importCsv(InputStream body) throws IOException {
+        log.info("importing books from csv");
+        return service.importBooks(reader.csv(body));
+    }
+}
@@ -0,0 +1,237 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
+import com.aprendendotddspring.aprendendo.service.BookImportRow;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Le o corpo da importacao de livros sob demanda, um registro por vez, para
+ * que arquivos grandes nao precisem caber em memoria. Cada linha sai validada
+ * como o POST /api/books valida o BooktDTO, ou com o erro que a invalidou.
+ */
+class BookImportReader {
+
+    private static final int MAX_RECORD_LINES = 100;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final DtoMapper mapper;
+
+    BookImportReader(ObjectMapper objectMapper, Validator validator, DtoMapper mapper) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.mapper = mapper;
+    }
+
+    /** Array JSON de livros. JSON mal formado encerra a leitura com um erro na linha onde ocorreu. */
+    Iterator<BookImportRow> json(InputStream body) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(body);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new BusinessException("O corpo deve ser um array JSON de livros");
+        }
+        return new RowIterator() {
+            boolean broken;
+
+            @Override
+            BookImportRow read(long row) throws IOException {
+                if (broken) {
+                    return null;
+                }
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        return null;
+                    }
+                    return validate(row, parser.readValueAs(BooktDTO.class));
+                } catch (JsonProcessingException e) {
+                    broken = true;
+                    return BookImportRow.invalid(row, null, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    /** Um livro JSON por linha; linhas em branco sao ignoradas. */
+    Iterator<BookImportRow> ndjson(InputStream body) {
+        BufferedReader reader = reader(body);
+        return new RowIterator() {
+            @Override
+            BookImportRow read(long row) throws IOException {
+                String line = reader.readLine();
+                while (line != null && line.trim().isEmpty()) {
+                    line = reader.readLine();
+                }
+                if (line == null) {
+                    return null;
+                }
+                try {
+                    return validate(row, objectMapper.readValue(line, BooktDTO.class));
+                } catch (JsonProcessingException e) {
+                    return BookImportRow.invalid(row, null, "JSON inválido: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    /** CSV com cabecalho contendo title, author e isbn, em qualquer ordem. */
+    Iterator<BookImportRow> csv(InputStream body) throws IOException {
+        BufferedReader reader = reader(body);
+        List<String> header = record(reader);
+        List<String> columns = header == null ? new ArrayList<>() : header.stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        int title = columns.indexOf("title");
+        int author = columns.indexOf("author");
+        int isbn = columns.indexOf("isbn");
+        if (title < 0 || author < 0 || isbn < 0) {
+            throw new BusinessException("O cabeçalho do CSV deve conter title, author e isbn");
+        }
+
+        return new RowIterator() {
+            @Override
+            BookImportRow read(long row) throws IOException {
+                List<String> values = record(reader);
+                if (values == null) {
+                    return null;
+                }
+                return validate(row, BooktDTO.builder()
+                        .title(column(values, title))
+                        .author(column(values, author))
+                        .isbn(column(values, isbn))
+                        .build());
+            }
+        };
+    }
+
+    private BookImportRow validate(long row, BooktDTO dto) {
+        if (dto == null) {
+            return BookImportRow.invalid(row, null, "Linha vazia");
+        }
+        Set<ConstraintViolation<BooktDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            return BookImportRow.invalid(row, dto.getIsbn(), message);
+        }
+        // a importacao so cria livros; um id informado seria tratado como update
+        dto.setId(null);
+        return BookImportRow.valid(row, mapper.toEntity(dto));
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private static String column(List<String> values, int index) {
+        return index < values.size() ? values.get(index).trim() : null;
+    }
+
+    /**
+     * Campos do proximo registro CSV, ou null no fim da entrada; linhas em branco
+     * sao ignoradas. Suporta aspas, aspas escapadas ("") e quebras de linha dentro
+     * de campos entre aspas, como a exportacao escreve; a quebra dentro do campo
+     * volta sempre como \n. Um campo com aspas abertas junta no maximo
+     * MAX_RECORD_LINES linhas, para uma aspa sem fechamento nao ler o arquivo todo.
+     */
+    static List<String> record(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int lines = 1; ; lines++) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted || lines == MAX_RECORD_LINES || (line = reader.readLine()) == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private abstract static class RowIterator implements Iterator<BookImportRow> {
+
+        private long row;
+        private BookImportRow next;
+        private boolean finished;
+
+        /** Proxima linha ou null no fim da entrada. */
+        abstract BookImportRow read(long row) throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = read(row + 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (next == null) {
+                    finished = true;
+                } else {
+                    row++;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public BookImportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BookImportRow current = next;
+            next = null;
+            return current;
+        }
+    }
+}
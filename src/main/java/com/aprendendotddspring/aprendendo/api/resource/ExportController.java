@@ -0,0 +1,96 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.service.BookService;
+import com.aprendendotddspring.aprendendo.service.LoanService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.aprendendotddspring.aprendendo.api.resource.BookImportController.CSV;
+import static com.aprendendotddspring.aprendendo.api.resource.BookImportController.NDJSON;
+
+/**
+ * Exportacao completa de livros e emprestimos em NDJSON ou CSV, conforme o
+ * Accept (NDJSON por padrao). As linhas vao do cursor da base direto para a
+ * resposta, sem pagina em memoria e sem query de count.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Api("Export API")
+@Slf4j
+public class ExportController {
+
+    private static final MediaType NDJSON_TYPE = MediaType.parseMediaType(NDJSON);
+    private static final MediaType CSV_TYPE = MediaType.parseMediaType(CSV);
+
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(value = "books/export", produces = {NDJSON, CSV})
+    @ApiOperation("Exporta todos os livros em stream, em ordem de id")
+    public void exportBooks(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        log.info("exporting books");
+        try (ExportWriter writer = writer(accept, "books", response)) {
+            writer.header("id", "title", "author", "isbn");
+            bookService.exportAll(book ->
+                    writer.row(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn()));
+        }
+    }
+
+    @GetMapping(value = "loans/export", produces = {NDJSON, CSV})
+    @ApiOperation("Exporta todos os emprestimos em stream, em ordem de id")
+    public void exportLoans(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                            HttpServletResponse response) throws IOException {
+        log.info("exporting loans");
+        try (ExportWriter writer = writer(accept, "loans", response)) {
+            writer.header("id", "customer", "email", "loanDate", "returned", "bookId", "isbn");
+            loanService.exportAll(loan -> writer.row(loan.getId(), loan.getCustomer(),
+                    loan.getCustomerEmail(), loan.getLoanDate(), loan.getReturned(),
+                    loan.getBook().getId(), loan.getBook().getIsbn()));
+        }
+    }
+
+    private ExportWriter writer(String accept, String name, HttpServletResponse response) throws IOException {
+        boolean csv = prefersCsv(accept);
+        response.setContentType((csv ? CSV_TYPE : NDJSON_TYPE).toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + (csv ? ".csv" : ".ndjson") + "\"");
+        return csv ? ExportWriter.csv(response.getOutputStream())
+                : ExportWriter.ndjson(response.getOutputStream(), objectMapper);
+    }
+
+    /** O tipo aceito de maior preferencia; sem Accept ou com curinga, NDJSON. */
+    static boolean prefersCsv(String accept) {
+        if (accept == null || accept.trim().isEmpty()) {
+            return false;
+        }
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            if (type.includes(NDJSON_TYPE)) {
+                return false;
+            }
+            if (type.includes(CSV_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
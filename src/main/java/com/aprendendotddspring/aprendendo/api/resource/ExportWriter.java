@@ -0,0 +1,128 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escreve a exportacao linha a linha direto na resposta, com um buffer de
+ * tamanho fixo, para que o volume exportado nao precise caber em memoria.
+ * Cada linha tem as colunas do cabecalho, na mesma ordem.
+ */
+abstract class ExportWriter implements Closeable {
+
+    protected String[] columns = new String[0];
+
+    /** Um objeto JSON por linha, com as colunas como campos. */
+    static ExportWriter ndjson(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        return new ExportWriter() {
+            @Override
+            void writeHeader() {
+            }
+
+            @Override
+            void writeRow(Object[] values) throws IOException {
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    generator.writeFieldName(columns[i]);
+                    value(generator, values[i]);
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                generator.close();
+            }
+        };
+    }
+
+    /** CSV com cabecalho, no formato lido pela importacao de livros. */
+    static ExportWriter csv(OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        return new ExportWriter() {
+            @Override
+            void writeHeader() throws IOException {
+                writeRow(columns);
+            }
+
+            @Override
+            void writeRow(Object[] values) throws IOException {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(field(values[i]));
+                }
+                writer.write("\r\n");
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+        };
+    }
+
+    void header(String... columns) {
+        this.columns = columns;
+        try {
+            writeHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Falhas de escrita (como o cliente desconectar) interrompem o cursor que alimenta a exportacao. */
+    void row(Object... values) {
+        try {
+            writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    abstract void writeHeader() throws IOException;
+
+    abstract void writeRow(Object[] values) throws IOException;
+
+    /**
+     * Valores simples escritos direto no gerador; o writeObject passa pelo
+     * ObjectMapper, que faz flush na resposta a cada campo.
+     */
+    private static void value(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Long || value instanceof Integer) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            // datas em ISO-8601, como o Jackson da aplicacao serializa LocalDate
+            generator.writeString(value.toString());
+        }
+    }
+
+    /** Campo CSV, entre aspas (com aspas dobradas) quando tiver virgula, aspas ou quebra de linha. */
+    static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,22 +1,27 @@
 package com.aprendendotddspring.aprendendo.api.resource;
 
 import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.CursorPageDTO;
 import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
 import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
 import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoanDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
 import com.aprendendotddspring.aprendendo.service.BookService;
 import com.aprendendotddspring.aprendendo.service.LoanService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.validation.Valid;
 import java.lang.reflect.Type;
 import java.time.LocalDate;
 import java.util.List;
@@ -30,7 +35,7 @@ public class LoanController {
 
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final DtoMapper mapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -63,21 +68,40 @@ public class LoanController {
         service.update(loan);
     }
 
+    @PatchMapping
+    public ReturnedLoansReportDTO returnBooks(@RequestBody @Valid ReturnedLoansDTO dto){
+        return service.returnLoans(dto.getIds());
+    }
+
     @GetMapping
     public Page<LoanDTO> find(LoanDTO dto, Pageable pageRequest){
-        LoanFilterDTO filter = modelMapper.map(dto, LoanFilterDTO.class);
+        LoanFilterDTO filter = mapper.toFilter(dto);
         Page<Loan> result = service.find(filter, pageRequest);
         List<LoanDTO> list = result.getContent().stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
-                    BooktDTO booktDTO = modelMapper.map(book, BooktDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(booktDTO);
-                    return loanDTO;
-                })
+                .map(mapper::toDto)
                 .collect(Collectors.toList());
 
         return new PageImpl<LoanDTO>(list, pageRequest, result.getTotalElements());
     }
 
+    @GetMapping(params = {"count=false", "!cursor"})
+    public Slice<LoanDTO> findSlice(LoanDTO dto, Pageable pageRequest){
+        LoanFilterDTO filter = mapper.toFilter(dto);
+        return service.findSlice(filter, pageRequest).map(mapper::toDto);
+    }
+
+    @GetMapping(params = "cursor")
+    public CursorPageDTO<LoanDTO> findByCursor(LoanDTO dto,
+                                               @RequestParam(required = false) Long cursor,
+                                               Pageable pageRequest){
+        LoanFilterDTO filter = mapper.toFilter(dto);
+        Slice<Loan> result = service.findAfter(filter, cursor, pageRequest.getPageSize());
+        List<LoanDTO> list = result.getContent().stream()
+                .map(mapper::toDto)
+                .collect(Collectors.toList());
+
+        Long nextCursor = result.hasNext() ? list.get(list.size() - 1).getId() : null;
+        return new CursorPageDTO<LoanDTO>(list, pageRequest.getPageSize(), nextCursor);
+    }
+
 }
@@ -0,0 +1,62 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
+import com.aprendendotddspring.aprendendo.service.ReactiveCatalogService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versao reativa das leituras do BookController (get, find e loanByBook) sobre
+ * R2DBC. A thread do Tomcat e liberada enquanto a consulta roda, e as listas
+ * sao enviadas em stream (um JSON por linha ou server-sent events), escrevendo
+ * cada elemento antes de pedir o proximo a base, em vez de uma pagina montada
+ * em memoria.
+ */
+@RestController
+@RequestMapping("/api/reactive/books")
+@RequiredArgsConstructor
+@Api("Reactive Book API")
+public class ReactiveBookController {
+
+    private final DtoMapper mapper;
+    private final ReactiveCatalogService service;
+
+    @GetMapping("{id}")
+    @ApiOperation("Obtem um livro pelo id sem bloquear a thread da requisicao")
+    public Mono<BooktDTO> get(@PathVariable Long id){
+        return service.getById(id)
+                .switchIfEmpty(notFound())
+                .map(mapper::toDto);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @ApiOperation("Filtra livros em stream, ordenados pelo id")
+    public Flux<BooktDTO> find(BooktDTO dto){
+        return service.find(mapper.toEntity(dto)).map(mapper::toDto);
+    }
+
+    @GetMapping(value = "{id}/loans", produces = {MediaType.APPLICATION_STREAM_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    @ApiOperation("Emprestimos do livro em stream, ordenados pelo id")
+    public Flux<LoanDTO> loanByBook(@PathVariable Long id){
+        return service.getById(id)
+                .switchIfEmpty(notFound())
+                .flatMapMany(book -> service.getLoansByBook(book.getId()))
+                .map(mapper::toDto);
+    }
+
+    private static <T> Mono<T> notFound() {
+        return Mono.defer(() -> Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+}
@@ -1,7 +1,7 @@
 package com.aprendendotddspring.aprendendo.config;
 
 
-import org.modelmapper.ModelMapper;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,11 +9,11 @@ import org.springframework.context.annotation.Configuration;
 
 public class Beans {
 
-    ModelMapper modelMapper;
+    DtoMapper dtoMapper;
 
     @Bean
-    public ModelMapper modelMapper(){
-        return this.modelMapper = new ModelMapper();
+    public DtoMapper dtoMapper(){
+        return this.dtoMapper = new DtoMapper();
     }
 
 
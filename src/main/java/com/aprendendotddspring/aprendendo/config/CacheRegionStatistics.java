@@ -0,0 +1,49 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acertos e misses de uma regiao do cache de segundo nivel, contados pelo
+ * {@link LibraryCacheRegionFactory} no acesso do Hibernate a regiao: uma
+ * leitura de entidade ou de consulta conta uma vez, e so e acerto se o
+ * Hibernate usou o valor do cache.
+ */
+public class CacheRegionStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    /** O valor lido do cache foi descartado pelo Hibernate e a base foi consultada. */
+    void discardedHit() {
+        hits.decrement();
+        misses.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Taxa de acerto, ou NaN enquanto a regiao nao foi lida. */
+    public double getHitRatio() {
+        long hitCount = getHitCount();
+        long requests = hitCount + getMissCount();
+        return requests == 0 ? Double.NaN : (double) hitCount / requests;
+    }
+
+    public void clear() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,139 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.AbstractDomainDataRegion;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Acesso a uma regiao de entidades que conta cada {@link #get} como acerto ou
+ * miss. A contagem fica aqui e nao no storage porque a estrategia read-write
+ * tambem le o storage no putFromLoad, e um miss seria contado duas vezes.
+ */
+class CountingEntityDataAccess implements EntityDataAccess, AbstractDomainDataRegion.Destructible {
+
+    private final EntityDataAccess delegate;
+    private final CacheRegionStatistics statistics;
+
+    CountingEntityDataAccess(EntityDataAccess delegate, CacheRegionStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object get(SharedSessionContractImplementor session, Object key) {
+        Object value = delegate.get(session, key);
+        if (value == null) {
+            statistics.miss();
+        } else {
+            statistics.hit();
+        }
+        return value;
+    }
+
+    @Override
+    public Object generateCacheKey(Object id, EntityPersister persister, SessionFactoryImplementor factory, String tenantIdentifier) {
+        return delegate.generateCacheKey(id, persister, factory, tenantIdentifier);
+    }
+
+    @Override
+    public Object getCacheKeyId(Object cacheKey) {
+        return delegate.getCacheKeyId(cacheKey);
+    }
+
+    @Override
+    public boolean insert(SharedSessionContractImplementor session, Object key, Object value, Object version) {
+        return delegate.insert(session, key, value, version);
+    }
+
+    @Override
+    public boolean afterInsert(SharedSessionContractImplementor session, Object key, Object value, Object version) {
+        return delegate.afterInsert(session, key, value, version);
+    }
+
+    @Override
+    public boolean update(SharedSessionContractImplementor session, Object key, Object value, Object currentVersion, Object previousVersion) {
+        return delegate.update(session, key, value, currentVersion, previousVersion);
+    }
+
+    @Override
+    public boolean afterUpdate(SharedSessionContractImplementor session, Object key, Object value, Object currentVersion, Object previousVersion, SoftLock lock) {
+        return delegate.afterUpdate(session, key, value, currentVersion, previousVersion, lock);
+    }
+
+    @Override
+    public DomainDataRegion getRegion() {
+        return delegate.getRegion();
+    }
+
+    @Override
+    public AccessType getAccessType() {
+        return delegate.getAccessType();
+    }
+
+    @Override
+    public boolean putFromLoad(SharedSessionContractImplementor session, Object key, Object value, Object version) {
+        return delegate.putFromLoad(session, key, value, version);
+    }
+
+    @Override
+    public boolean putFromLoad(SharedSessionContractImplementor session, Object key, Object value, Object version, boolean minimalPutOverride) {
+        return delegate.putFromLoad(session, key, value, version, minimalPutOverride);
+    }
+
+    @Override
+    public SoftLock lockItem(SharedSessionContractImplementor session, Object key, Object version) {
+        return delegate.lockItem(session, key, version);
+    }
+
+    @Override
+    public void unlockItem(SharedSessionContractImplementor session, Object key, SoftLock lock) {
+        delegate.unlockItem(session, key, lock);
+    }
+
+    @Override
+    public void remove(SharedSessionContractImplementor session, Object key) {
+        delegate.remove(session, key);
+    }
+
+    @Override
+    public void removeAll(SharedSessionContractImplementor session) {
+        delegate.removeAll(session);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return delegate.contains(key);
+    }
+
+    @Override
+    public SoftLock lockRegion() {
+        return delegate.lockRegion();
+    }
+
+    @Override
+    public void unlockRegion(SoftLock lock) {
+        delegate.unlockRegion(lock);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void evictAll() {
+        delegate.evictAll();
+    }
+
+    @Override
+    public void destroy() {
+        if (delegate instanceof AbstractDomainDataRegion.Destructible) {
+            ((AbstractDomainDataRegion.Destructible) delegate).destroy();
+        }
+    }
+}
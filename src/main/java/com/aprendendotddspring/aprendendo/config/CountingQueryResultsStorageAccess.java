@@ -0,0 +1,74 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Storage de uma regiao de consultas que conta acertos e misses. O Hibernate
+ * descarta um resultado lido se a tabela mudou depois dele, executa a consulta e
+ * grava o novo resultado na mesma chave: esse put na mesma thread transforma o
+ * acerto anterior em miss.
+ */
+class CountingQueryResultsStorageAccess implements StorageAccess {
+
+    private final StorageAccess delegate;
+    private final CacheRegionStatistics statistics;
+    private final ThreadLocal<Object> lastHit = new ThreadLocal<>();
+
+    CountingQueryResultsStorageAccess(StorageAccess delegate, CacheRegionStatistics statistics) {
+        this.delegate = delegate;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Object value = delegate.getFromCache(key, session);
+        if (value == null) {
+            statistics.miss();
+            lastHit.remove();
+        } else {
+            statistics.hit();
+            lastHit.set(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        if (key.equals(lastHit.get())) {
+            statistics.discardedHit();
+        }
+        lastHit.remove();
+        delegate.putIntoCache(key, value, session);
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        delegate.removeFromCache(key, session);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        delegate.clearCache(session);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return delegate.contains(key);
+    }
+
+    @Override
+    public void evictData() {
+        delegate.evictData();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        delegate.evictData(key);
+    }
+
+    @Override
+    public void release() {
+        delegate.release();
+    }
+}
@@ -0,0 +1,52 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+/**
+ * DataSource JDBC (JPA, Flyway) ao lado da ConnectionFactory R2DBC da API
+ * reativa. O Spring Boot so cria o DataSource sozinho quando nao existe uma
+ * ConnectionFactory, entao ele e declarado aqui com as mesmas propriedades
+ * spring.datasource.* e spring.datasource.hikari.* do auto-configure.
+ * As leituras em stream (exportacoes, reconstrucao do indice de busca) usam
+ * um pool pequeno e separado, application.datasource.streaming.hikari.*,
+ * porque seguram a conexao durante todo o stream.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class DataSourceConfig {
+
+    public static final String STREAMING_DATA_SOURCE = "streamingDataSource";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @Bean(STREAMING_DATA_SOURCE)
+    @ConfigurationProperties(prefix = "application.datasource.streaming.hikari")
+    public HikariDataSource streamingDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("library-streaming-pool");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+}
@@ -0,0 +1,69 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.EntityDataCachingConfig;
+import org.hibernate.cache.jcache.internal.JCacheDomainDataRegionImpl;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Region factory JCache com um CacheManager proprio por SessionFactory. O
+ * provider padrao devolve o mesmo CacheManager para toda a JVM, e contextos
+ * diferentes (como os dos testes, cada um com sua base) passariam a enxergar
+ * as entradas uns dos outros. O Caffeine ignora a URI na configuracao das
+ * regioes, que continua vindo de application.conf.
+ *
+ * <p>Tambem conta acertos e misses de cada regiao de entidades e de consultas
+ * ({@link #getRegionStatistics}) sem depender de hibernate.generate_statistics.
+ */
+public class LibraryCacheRegionFactory extends JCacheRegionFactory {
+
+    private final Map<String, CacheRegionStatistics> statistics = new ConcurrentHashMap<>();
+
+    public CacheRegionStatistics getRegionStatistics(String region) {
+        return statistics.computeIfAbsent(region, name -> new CacheRegionStatistics());
+    }
+
+    @Override
+    protected URI getUri(SessionFactoryOptions settings, Map properties) {
+        return URI.create("jcache://library/" + UUID.randomUUID());
+    }
+
+    @Override
+    public DomainDataRegion buildDomainDataRegion(DomainDataRegionConfig regionConfig, DomainDataRegionBuildingContext buildingContext) {
+        return new CountingDomainDataRegion(regionConfig, this, buildingContext);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return new CountingQueryResultsStorageAccess(
+                super.createQueryResultsRegionStorageAccess(regionName, sessionFactory), getRegionStatistics(regionName));
+    }
+
+    private static class CountingDomainDataRegion extends JCacheDomainDataRegionImpl {
+
+        CountingDomainDataRegion(DomainDataRegionConfig regionConfig, LibraryCacheRegionFactory regionFactory,
+                                 DomainDataRegionBuildingContext buildingContext) {
+            super(regionConfig, regionFactory, regionFactory.createDomainDataStorageAccess(regionConfig, buildingContext),
+                    regionFactory.getImplicitCacheKeysFactory(), buildingContext);
+        }
+
+        // chamado pelo construtor da superclasse: so usa o que ela ja inicializou
+        @Override
+        public EntityDataAccess generateEntityAccess(EntityDataCachingConfig entityAccessConfig) {
+            LibraryCacheRegionFactory regionFactory = (LibraryCacheRegionFactory) getRegionFactory();
+            return new CountingEntityDataAccess(super.generateEntityAccess(entityAccessConfig),
+                    regionFactory.getRegionStatistics(getName()));
+        }
+    }
+}
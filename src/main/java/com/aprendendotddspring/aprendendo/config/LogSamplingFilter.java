@@ -0,0 +1,55 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantem so um a cada {@code rate} eventos INFO/DEBUG/TRACE dos loggers
+ * configurados (e dos filhos deles), como os dos controllers mais chamados;
+ * WARN e ERROR passam sempre. Como TurboFilter, o evento descartado nem
+ * chega a ser criado. Configurado no logback-spring.xml a partir de
+ * application.logging.sampling.*.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private String[] loggers = new String[0];
+    private long rate = 1;
+    private final AtomicLong events = new AtomicLong();
+
+    /** Nomes dos loggers amostrados, separados por virgula. */
+    public void setLoggers(String loggers) {
+        this.loggers = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    public void setRate(long rate) {
+        this.rate = Math.max(rate, 1);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format nulo e uma chamada a isInfoEnabled(), nao um evento
+        if (rate == 1 || format == null || level.isGreaterOrEqual(Level.WARN)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel()) || !sampled(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return events.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean sampled(String name) {
+        for (String logger : loggers) {
+            if (name.equals(logger) || name.startsWith(logger) && name.charAt(logger.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
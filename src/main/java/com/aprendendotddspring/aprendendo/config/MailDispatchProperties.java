@@ -0,0 +1,36 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuracao da fila de envio de emails (application.mail.dispatch.*).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "application.mail.dispatch")
+public class MailDispatchProperties {
+
+    /** Threads que enviam os lotes para o servidor SMTP. */
+    private int workers = 2;
+
+    /** Lotes aguardando envio antes de aplicar back-pressure em quem chama. */
+    private int queueCapacity = 100;
+
+    /**
+     * Com a fila cheia, tempo maximo que quem chama espera por espaco antes do
+     * lote ser rejeitado; tambem e o tempo que o desligamento espera os lotes
+     * pendentes.
+     */
+    private long offerTimeout = 5000;
+
+    /** Mensagens enviadas na mesma conexao SMTP. */
+    private int batchSize = 50;
+
+    /** Tentativas por lote, incluindo a primeira. */
+    private int maxAttempts = 3;
+
+    /** Espera, em ms, antes da primeira retentativa; dobra a cada nova tentativa. */
+    private long backoff = 1000;
+}
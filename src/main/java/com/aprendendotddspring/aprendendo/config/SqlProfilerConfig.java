@@ -0,0 +1,24 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import com.aprendendotddspring.aprendendo.actuator.SqlProfiler;
+import com.aprendendotddspring.aprendendo.actuator.SqlProfilerFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Registra o filtro do SqlProfiler antes dos demais, para os statements de
+ * qualquer filtro tambem contarem na requisicao. Fica fora do scan dos
+ * testes @WebMvcTest, que nao tem DataSource.
+ */
+@Configuration
+public class SqlProfilerConfig {
+
+    @Bean
+    public FilterRegistrationBean<SqlProfilerFilter> sqlProfilerFilter(SqlProfiler profiler) {
+        FilterRegistrationBean<SqlProfilerFilter> registration = new FilterRegistrationBean<>(new SqlProfilerFilter(profiler));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,40 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import com.aprendendotddspring.aprendendo.actuator.StartupTimings;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Efeitos colaterais do startup. Rodam em background depois que a aplicacao
+ * passa a aceitar trafego, para nao atrasar o boot nem a readiness.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartupTasks {
+
+    private final EmailService emailService;
+    private final StartupTimings timings;
+
+    @Async
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return;
+        }
+        timings.task("testMail", () -> {
+            List<String> emails = Arrays.asList("63625c9c69-d5042d@inbox.mailtrap.io");
+            emailService.sendMails("Testando servico de emails", emails);
+            log.info("EMAILS ENVIADOS!!");
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fabrica de virtual threads (Java 21+). O projeto continua compilando para
+ * Java 8, entao a API e acessada por reflexao e so existe quando a aplicacao
+ * roda num JDK que a suporta; pedir virtual threads num JDK antigo falha no
+ * startup em vez de cair silenciosamente para platform threads.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /** Threads virtuais nomeadas prefix1, prefix2, ... */
+    public static ThreadFactory factory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            Method factory = ofVirtual.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later, running on "
+                    + System.getProperty("java.version") + ".", e);
+        } catch (InvocationTargetException e) {
+            // Java 19/20 so tem virtual threads com --enable-preview
+            throw new IllegalStateException("Virtual threads are not available on Java "
+                    + System.getProperty("java.version") + ".", e.getCause());
+        }
+    }
+
+    /** Executor que roda cada tarefa numa virtual thread nova, sem pool. */
+    public static Executor executor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        return task -> factory.newThread(task).start();
+    }
+}
@@ -0,0 +1,47 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.TaskExecutorCustomizer;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modo opcional (application.threads.virtual=true, Java 21+) em que as
+ * requisicoes HTTP, o job do ScheduleService, as tarefas @Async e o envio de
+ * emails rodam em virtual threads. Uma chamada JPA bloqueada libera a carrier
+ * thread, entao picos de requisicoes ficam limitados pelo pool de conexoes e
+ * nao pelo server.tomcat.threads.max.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "application.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig() {
+        if (!VirtualThreads.isSupported()) {
+            throw new IllegalStateException("application.threads.virtual=true requires Java 21 or later, running on "
+                    + System.getProperty("java.version") + ".");
+        }
+        log.info("running requests, scheduled jobs and email sending on virtual threads");
+    }
+
+    /** Cada requisicao numa virtual thread; o Tomcat deixa de usar o proprio pool. */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.executor("http-vt-"));
+    }
+
+    @Bean
+    public TaskSchedulerCustomizer virtualThreadsTaskScheduler() {
+        return scheduler -> scheduler.setThreadFactory(VirtualThreads.factory("scheduling-vt-"));
+    }
+
+    @Bean
+    public TaskExecutorCustomizer virtualThreadsTaskExecutor() {
+        return executor -> executor.setThreadFactory(VirtualThreads.factory("task-vt-"));
+    }
+}
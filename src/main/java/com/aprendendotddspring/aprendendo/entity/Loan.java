@@ -1,9 +1,11 @@
 package com.aprendendotddspring.aprendendo.entity;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -13,9 +15,11 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table
+@Table(uniqueConstraints = @UniqueConstraint(name = Loan.ACTIVE_BOOK, columnNames = "active_book_id"))
 public class Loan {
 
+    public static final String ACTIVE_BOOK = "uk_loan_active_book";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,13 +28,32 @@ public class Loan {
     private String customer;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     private LocalDate loanDate;
 
+    // nunca null no banco: emprestimo aberto e returned = false, o que deixa as consultas usarem indice
+    @Column(nullable = false)
     private Boolean returned;
 
     @Column(name = "customer_email")
     private String customerEmail;
+
+    /**
+     * Id do livro enquanto o emprestimo estiver aberto e null depois da devolucao.
+     * A constraint unica sobre esta coluna impede dois emprestimos abertos do mesmo livro.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "active_book_id")
+    private Long activeBookId;
+
+    @PrePersist
+    @PreUpdate
+    void markActiveBook() {
+        if (returned == null) {
+            returned = false;
+        }
+        activeBookId = book == null || returned ? null : book.getId();
+    }
 }
@@ -2,14 +2,37 @@ package com.aprendendotddspring.aprendendo.model.repository;
 
 import com.aprendendotddspring.aprendendo.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
 
-    boolean existsByIsbn(String isbn);
+    /** Regiao do cache de consulta do findByIsbn, configurada em application.conf. */
+    String ISBN_CACHE_REGION = "book-by-isbn";
 
+    // o cache guarda so o id; o livro vem da regiao "book"
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = ISBN_CACHE_REGION)
+    })
     Optional<Book> findByIsbn(String isbn);
 
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("select max(b.lastModified) from Book b")
+    Instant findMaxLastModified();
+
 //    Book findBookFetchLoans();
 }
@@ -0,0 +1,29 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+
+    /**
+     * Busca por exemplo paginada por chave (keyset): livros com id maior que o
+     * cursor, em ordem de id, sem query de count.
+     */
+    Slice<Book> findAllAfter(Example<Book> example, Long cursor, int size);
+
+    /**
+     * Busca por exemplo paginada por offset, sem query de count.
+     */
+    Slice<Book> findAllSliced(Example<Book> example, Pageable pageable);
+
+    /**
+     * Percorre todos os livros em ordem de id com um cursor JDBC, numa sessao
+     * sem estado: nada fica no contexto de persistencia nem passa pelo cache,
+     * entao a memoria usada nao depende de quantos livros existem.
+     */
+    void scrollAll(Consumer<Book> action);
+}
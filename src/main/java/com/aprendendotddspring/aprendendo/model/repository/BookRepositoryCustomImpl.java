@@ -0,0 +1,109 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.config.DataSourceConfig;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    private static final int SCROLL_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired(required = false)
+    @Qualifier(DataSourceConfig.STREAMING_DATA_SOURCE)
+    private DataSource streamingDataSource;
+
+    @Override
+    public Slice<Book> findAllAfter(Example<Book> example, Long cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+
+        Predicate after = cb.greaterThan(root.get("id"), cursor == null ? 0L : cursor);
+        Predicate byExample = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+        query.where(byExample == null ? after : cb.and(byExample, after))
+                .orderBy(cb.asc(root.get("id")));
+
+        return slice(entityManager.createQuery(query), PageRequest.of(0, size));
+    }
+
+    @Override
+    public Slice<Book> findAllSliced(Example<Book> example, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> root = query.from(Book.class);
+
+        Predicate byExample = QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+        if (byExample != null) {
+            query.where(byExample);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        return slice(entityManager.createQuery(query).setFirstResult((int) pageable.getOffset()), pageable);
+    }
+
+    @Override
+    public void scrollAll(Consumer<Book> action) {
+        scroll(entityManager, streamingDataSource, "select b from Book b order by b.id", Book.class, action);
+    }
+
+    /**
+     * Percorre o resultado numa sessao sem estado. A conexao vem do pool de streaming
+     * quando ele existe, para um stream longo nao ocupar o pool das requisicoes.
+     */
+    static <T> void scroll(EntityManager entityManager, DataSource streamingDataSource,
+                           String query, Class<T> type, Consumer<T> action) {
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (Connection connection = streamingDataSource == null ? null : streamingDataSource.getConnection();
+             StatelessSession session = connection == null
+                     ? sessionFactory.openStatelessSession()
+                     : sessionFactory.openStatelessSession(connection);
+             ScrollableResults results = session.createQuery(query, type)
+                     .setFetchSize(SCROLL_FETCH_SIZE)
+                     .setReadOnly(true)
+                     .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                action.accept(type.cast(results.get(0)));
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not open a streaming connection.", e);
+        }
+    }
+
+    /** Le uma linha a mais que o tamanho da pagina para saber se existe proxima. */
+    private Slice<Book> slice(TypedQuery<Book> query, Pageable pageable) {
+        int size = pageable.getPageSize();
+        List<Book> content = query.setMaxResults(size + 1).getResultList();
+
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, pageable, hasNext);
+    }
+}
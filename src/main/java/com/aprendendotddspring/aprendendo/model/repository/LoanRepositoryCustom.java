@@ -0,0 +1,30 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.Consumer;
+
+/**
+ * Filtro de emprestimos por isbn do livro ou cliente. So entram na consulta
+ * os filtros informados (null ou vazio e ignorado; sem filtro lista todos),
+ * e quando os dois sao informados o resultado e a uniao dos dois.
+ */
+public interface LoanRepositoryCustom {
+
+    Page<Loan> findByIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+    /** Como {@link #findByIsbnOrCustomer}, sem query de count. */
+    Slice<Loan> findSliceByIsbnOrCustomer(String isbn, String customer, Pageable pageable);
+
+    /** Paginacao por chave (keyset): emprestimos com id maior que o cursor, em ordem de id. */
+    Slice<Loan> findByIsbnOrCustomerAfter(String isbn, String customer, Long cursor, int size);
+
+    /**
+     * Percorre todos os emprestimos, com o livro, em ordem de id e sem filtro,
+     * com um cursor JDBC numa sessao sem estado (ver BookRepositoryCustom#scrollAll).
+     */
+    void scrollAllWithBook(Consumer<Loan> action);
+}
@@ -0,0 +1,179 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.config.DataSourceConfig;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolve o filtro em duas etapas: primeiro os ids da pagina, com SQL nativo
+ * em que cada filtro informado vira um select indexado (idx_loan_customer,
+ * uk_book_isbn) unido por UNION dentro de um "id in (...)"; depois os
+ * emprestimos desses ids com o livro em um unico fetch join. Um OR entre
+ * colunas de tabelas diferentes impediria o uso dos indices.
+ */
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    private static final Map<String, String> SORT_COLUMNS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("id", "id");
+        SORT_COLUMNS.put("customer", "customer");
+        SORT_COLUMNS.put("customerEmail", "customer_email");
+        SORT_COLUMNS.put("loanDate", "loan_date");
+        SORT_COLUMNS.put("returned", "returned");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired(required = false)
+    @Qualifier(DataSourceConfig.STREAMING_DATA_SOURCE)
+    private DataSource streamingDataSource;
+
+    @Override
+    public Page<Loan> findByIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        Filter filter = new Filter(isbn, customer, null);
+        List<Long> ids = ids(filter, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(load(ids), pageable, () -> count(filter));
+    }
+
+    @Override
+    public Slice<Loan> findSliceByIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        List<Long> ids = ids(new Filter(isbn, customer, null), pageable.getSort(),
+                (int) pageable.getOffset(), pageable.getPageSize() + 1);
+        return slice(ids, pageable);
+    }
+
+    @Override
+    public Slice<Loan> findByIsbnOrCustomerAfter(String isbn, String customer, Long cursor, int size) {
+        List<Long> ids = ids(new Filter(isbn, customer, cursor == null ? 0L : cursor), Sort.by("id"), 0, size + 1);
+        return slice(ids, PageRequest.of(0, size));
+    }
+
+    @Override
+    public void scrollAllWithBook(Consumer<Loan> action) {
+        BookRepositoryCustomImpl.scroll(entityManager, streamingDataSource,
+                "select l from Loan l join fetch l.book order by l.id", Loan.class, action);
+    }
+
+    private List<Long> ids(Filter filter, Sort sort, int offset, int limit) {
+        String sql = "select l.id from loan l" + filter.where() + " order by " + orderBy(sort);
+        Query query = entityManager.createNativeQuery(sql);
+        filter.bind(query);
+        List<?> result = query.setFirstResult(offset).setMaxResults(limit).getResultList();
+        return result.stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private long count(Filter filter) {
+        Query query = entityManager.createNativeQuery("select count(*) from loan l" + filter.where());
+        filter.bind(query);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+    /** Carrega os emprestimos com o livro, na ordem dos ids. */
+    private List<Loan> load(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Loan> loans = entityManager
+                .createQuery("select l from Loan l join fetch l.book where l.id in :ids", Loan.class)
+                .setParameter("ids", ids)
+                .getResultList().stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        return ids.stream()
+                .map(loans::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /** Os ids foram lidos com uma linha a mais que o tamanho da pagina para saber se existe proxima. */
+    private Slice<Loan> slice(List<Long> ids, Pageable pageable) {
+        int size = pageable.getPageSize();
+        boolean hasNext = ids.size() > size;
+        return new SliceImpl<>(load(hasNext ? ids.subList(0, size) : ids), pageable, hasNext);
+    }
+
+    private String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Invalid sort property for loans: " + order.getProperty());
+            }
+            byId |= column.equals("id");
+            orders.add("l." + column + (order.isAscending() ? " asc" : " desc"));
+        }
+        // desempate por id para a paginacao ser estavel
+        if (!byId) {
+            orders.add("l.id asc");
+        }
+        return String.join(", ", orders);
+    }
+
+    /**
+     * Cada filtro informado vira um select de ids sobre o seu indice. O cursor
+     * entra em cada select: fora deles o H2 prefere percorrer a chave primaria
+     * a partir do cursor.
+     */
+    private static class Filter {
+
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+        final String condition;
+
+        Filter(String isbn, String customer, Long cursor) {
+            String afterCursor = "";
+            if (cursor != null) {
+                afterCursor = " and fl.id > :cursor";
+                parameters.put("cursor", cursor);
+            }
+            List<String> selects = new ArrayList<>();
+            if (StringUtils.hasText(isbn)) {
+                selects.add("select fl.id from loan fl join book fb on fb.id = fl.id_book where fb.isbn = :isbn" + afterCursor);
+                parameters.put("isbn", isbn);
+            }
+            if (StringUtils.hasText(customer)) {
+                selects.add("select fl.id from loan fl where fl.customer = :customer" + afterCursor);
+                parameters.put("customer", customer);
+            }
+            if (!selects.isEmpty()) {
+                condition = "l.id in (" + String.join(" union ", selects) + ")";
+            } else {
+                condition = cursor != null ? "l.id > :cursor" : null;
+            }
+        }
+
+        String where() {
+            return condition == null ? "" : " where " + condition;
+        }
+
+        void bind(Query query) {
+            parameters.forEach(query::setParameter);
+        }
+    }
+}
@@ -5,24 +5,44 @@ import com.aprendendotddspring.aprendendo.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
-public interface LoanRepostory extends JpaRepository<Loan, Long> {
+public interface LoanRepostory extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
 
-    @Query(value = " select case when ( count(l.id) > 0 ) then true else false end from " +
-            "Loan l where l.book = :book and (l.returned is null or l.returned is false) ")
-    boolean existsByBookAndNotReturned(@Param("book") Book book);
+    @EntityGraph(attributePaths = "book")
+    Page<Loan> findByBook(Book book, Pageable pageable);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer")
-    Page<Loan> findByBookIsbnOrCustumer(@Param("isbn") String isbn, @Param("customer") String custumer, Pageable pageable);
+    @EntityGraph(attributePaths = "book")
+    Slice<Loan> findSliceByBook(Book book, Pageable pageable);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    @Query("select l from Loan l where l.loanDate <= :threeDayAgo and l.returned = false " +
+            "and l.id > :cursor order by l.id")
+    Slice<Loan> findLateLoansAfter(@Param("threeDayAgo") LocalDate threeDayAgo, @Param("cursor") Long cursor,
+                                   Pageable pageable);
+
+    @Query("select l.id from Loan l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select l.id from Loan l where l.id in :ids and l.returned = true")
+    List<Long> findReturnedIds(@Param("ids") Collection<Long> ids);
 
-    @Query("select l from Loan l where l.loanDate <= :threeDayAgo and (l.returned is null or l.returned is false)")
-    List<Loan> findByLoansDatesLessThanAndNotReturned(@Param("threeDayAgo") LocalDate threeDayAgo);
+    /**
+     * Devolve os emprestimos ainda em aberto com um unico update; tambem libera o marcador de
+     * emprestimo ativo do livro. Os ja devolvidos ficam fora, entao o retorno e o numero de
+     * emprestimos devolvidos por esta chamada.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true, l.activeBookId = null where l.id in :ids and l.returned = false")
+    int returnAll(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,96 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Leituras de livros e emprestimos via R2DBC, sobre as mesmas tabelas do JPA.
+ * As linhas sao emitidas conforme o assinante pede, sem montar a lista inteira
+ * em memoria. Sem cache de segundo nivel nem ordenacao pelo Pageable: a ordem
+ * e sempre pelo id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveCatalogRepository {
+
+    private static final String BOOK_COLUMNS = "b.id, b.title, b.author, b.isbn";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Book> findBookById(Long id) {
+        return databaseClient.execute("select " + BOOK_COLUMNS + " from book b where b.id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> book(row))
+                .one();
+    }
+
+    /**
+     * Mesmo criterio do Example do BookService.find: cada campo informado
+     * filtra por "contem", ignorando maiusculas; o id filtra por igualdade.
+     */
+    public Flux<Book> findBooks(Book filter) {
+        StringBuilder sql = new StringBuilder("select " + BOOK_COLUMNS + " from book b where 1 = 1");
+        Map<String, Object> binds = new LinkedHashMap<>();
+        if (filter.getId() != null) {
+            sql.append(" and b.id = :id");
+            binds.put("id", filter.getId());
+        }
+        containing(sql, binds, "title", filter.getTitle());
+        containing(sql, binds, "author", filter.getAuthor());
+        containing(sql, binds, "isbn", filter.getIsbn());
+        sql.append(" order by b.id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.execute(sql.toString());
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map((row, metadata) -> book(row)).all();
+    }
+
+    public Flux<Loan> findLoansByBook(Long bookId) {
+        return databaseClient.execute("select l.id as loan_id, l.customer, l.customer_email, l.loan_date, l.returned, "
+                + BOOK_COLUMNS + " from loan l join book b on b.id = l.id_book"
+                + " where l.id_book = :bookId order by l.id")
+                .bind("bookId", bookId)
+                .map((row, metadata) -> Loan.builder()
+                        .id(row.get("loan_id", Long.class))
+                        .customer(row.get("customer", String.class))
+                        .customerEmail(row.get("customer_email", String.class))
+                        .loanDate(row.get("loan_date", LocalDate.class))
+                        .returned(row.get("returned", Boolean.class))
+                        .book(book(row))
+                        .build())
+                .all();
+    }
+
+    private static void containing(StringBuilder sql, Map<String, Object> binds, String column, String value) {
+        if (value == null) {
+            return;
+        }
+        sql.append(" and lower(b.").append(column).append(") like :").append(column).append(" escape '\\'");
+        binds.put(column, "%" + escapeLike(value.toLowerCase()) + "%");
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Book book(Row row) {
+        return Book.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .isbn(row.get("isbn", String.class))
+                .build();
+    }
+}
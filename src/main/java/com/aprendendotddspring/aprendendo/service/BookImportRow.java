@@ -0,0 +1,30 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Uma linha da importacao em massa: o livro ja convertido ou o erro de
+ * leitura/validacao que impediu a conversao.
+ */
+@Data
+@AllArgsConstructor
+public class BookImportRow {
+
+    private long row;
+
+    private String isbn;
+
+    private Book book;
+
+    private String error;
+
+    public static BookImportRow valid(long row, Book book) {
+        return new BookImportRow(row, book.getIsbn(), book, null);
+    }
+
+    public static BookImportRow invalid(long row, String isbn, String error) {
+        return new BookImportRow(row, isbn, null, error);
+    }
+}
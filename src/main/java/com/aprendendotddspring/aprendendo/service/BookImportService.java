@@ -0,0 +1,10 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+
+import java.util.Iterator;
+
+public interface BookImportService {
+
+    BookImportReportDTO importBooks(Iterator<BookImportRow> rows);
+}
@@ -0,0 +1,321 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.ServiceUnavailableException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Indice Lucene de busca textual sobre titulo, autor e isbn dos livros.
+ * Mantido pelo BookService (write-through) em save/update/delete e
+ * reconstruido a partir da base depois do startup, numa thread propria, quando
+ * estiver vazio ou, se persistido em disco, quando o numero de livros ou o
+ * maior lastModified nao baterem com a base; ate la a busca responde 503. Em disco, as escritas sao gravadas (commit) a cada
+ * commit-every alteracoes ou a cada commit-interval ms, o que vier antes.
+ */
+@Slf4j
+@Component
+public class BookSearchIndex {
+
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String AUTHOR = "author";
+    private static final String ISBN = "isbn";
+
+    /** Maior lastModified (epoch ms) entre os livros indexados, gravado nos dados de cada commit. */
+    private static final String LAST_MODIFIED = "lastModified";
+
+    /** Mesmo limite do IndexSearcher: acima dele o total de resultados e um limite inferior. */
+    private static final int TOTAL_HITS_THRESHOLD = 1000;
+
+    private final BookRepository repository;
+    private final boolean persistent;
+    private final int commitEvery;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final MultiFieldQueryParser parser;
+    private final ExecutorService reconciler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean ready;
+
+    private final AtomicInteger uncommitted = new AtomicInteger();
+    private final LongAccumulator lastModified = new LongAccumulator(Math::max, 0);
+
+    public BookSearchIndex(@Value("${application.search.index.path:}") String path,
+                           @Value("${application.search.index.commit-every:1000}") int commitEvery,
+                           BookRepository repository) throws IOException {
+        this.repository = repository;
+        this.persistent = path != null && !path.isEmpty();
+        this.commitEvery = commitEvery;
+
+        Directory directory = persistent
+                ? FSDirectory.open(Paths.get(path))
+                : new ByteBuffersDirectory();
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+
+        Map<String, Float> boosts = new HashMap<>();
+        boosts.put(TITLE, 2f);
+        boosts.put(AUTHOR, 1.5f);
+        boosts.put(ISBN, 1f);
+        this.parser = new MultiFieldQueryParser(new String[]{TITLE, AUTHOR, ISBN}, analyzer, boosts);
+        this.parser.setDefaultOperator(QueryParser.Operator.AND);
+        // termos como isbn com hifen viram frase em vez de OR entre as partes
+        this.parser.setSplitOnWhitespace(true);
+        this.parser.setAutoGeneratePhraseQueries(true);
+    }
+
+    /** Reconcilia em background para uma reconstrucao do catalogo inteiro nao atrasar a readiness. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileInBackground() {
+        reconciler.execute(() -> {
+            try {
+                reconcile();
+            } catch (IOException | RuntimeException e) {
+                log.error("could not build the book search index, search stays unavailable", e);
+            }
+        });
+    }
+
+    public synchronized void reconcile() throws IOException {
+        if (writer.getDocStats().numDocs > 0) {
+            long books = repository.count();
+            Instant newest = repository.findMaxLastModified();
+            long indexed = writer.getDocStats().numDocs;
+            long indexedNewest = committedLastModified();
+            if (indexed == books && indexedNewest == (newest == null ? 0 : newest.toEpochMilli())) {
+                lastModified.accumulate(indexedNewest);
+                ready = true;
+                return;
+            }
+            log.info("book search index is stale ({} of {} books), rebuilding", indexed, books);
+        }
+        rebuild();
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private void rebuild() throws IOException {
+        log.info("building book search index");
+        writer.deleteAll();
+        try {
+            // update e nao add: o BookService continua indexando enquanto a reconstrucao roda
+            repository.scrollAll(book -> {
+                try {
+                    writer.updateDocument(new Term(ID, book.getId().toString()), document(book));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        commit();
+        searcherManager.maybeRefresh();
+        log.info("book search index built with {} books", writer.getDocStats().numDocs);
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        try {
+            writer.updateDocument(new Term(ID, book.getId().toString()), document(book));
+            searcherManager.maybeRefresh();
+            written(1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Indexa varios livros com um unico refresh do searcher, para importacoes em massa. */
+    public void indexAll(Collection<Book> books) {
+        try {
+            int count = 0;
+            for (Book book : books) {
+                if (book != null && book.getId() != null) {
+                    writer.updateDocument(new Term(ID, book.getId().toString()), document(book));
+                    count++;
+                }
+            }
+            searcherManager.maybeRefresh();
+            written(count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(new Term(ID, id.toString()));
+            searcherManager.maybeRefresh();
+            written(1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Grava no disco as alteracoes pendentes, para nao depender do close no desligamento. */
+    @Scheduled(fixedDelayString = "${application.search.index.commit-interval:5000}")
+    public void commitPending() throws IOException {
+        if (persistent && writer.hasUncommittedChanges()) {
+            commit();
+        }
+    }
+
+    private void written(int count) throws IOException {
+        if (persistent && uncommitted.addAndGet(count) >= commitEvery) {
+            commit();
+        }
+    }
+
+    private void commit() throws IOException {
+        uncommitted.set(0);
+        writer.setLiveCommitData(Collections.singletonMap(LAST_MODIFIED, String.valueOf(lastModified.get())).entrySet());
+        writer.commit();
+    }
+
+    private long committedLastModified() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data) {
+                if (LAST_MODIFIED.equals(entry.getKey())) {
+                    return Long.parseLong(entry.getValue());
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ids dos livros que casam com o texto, do mais relevante para o menos
+     * relevante, com o total de resultados.
+     */
+    public Page<Long> search(String text, Pageable pageable) {
+        if (!ready) {
+            throw new ServiceUnavailableException("Book search index is still being built.");
+        }
+        if (text == null || text.trim().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+
+        Query query;
+        try {
+            query = parser.parse(QueryParser.escape(text.trim()));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid search text.", e);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                int offset = (int) pageable.getOffset();
+                TopScoreDocCollector collector = TopScoreDocCollector.create(offset + pageable.getPageSize(),
+                        Math.max(offset + pageable.getPageSize(), TOTAL_HITS_THRESHOLD));
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs();
+
+                List<Long> ids = new ArrayList<>();
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = offset; i < scoreDocs.length; i++) {
+                    ids.add(Long.valueOf(searcher.doc(scoreDocs[i].doc).get(ID)));
+                }
+                return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        reconciler.shutdownNow();
+        try {
+            reconciler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (persistent) {
+            commit();
+        }
+        searcherManager.close();
+        writer.close();
+    }
+
+    private Document document(Book book) {
+        if (book.getLastModified() != null) {
+            lastModified.accumulate(book.getLastModified().toEpochMilli());
+        }
+        Document document = new Document();
+        document.add(new StringField(ID, book.getId().toString(), Field.Store.YES));
+        if (book.getTitle() != null) {
+            document.add(new TextField(TITLE, book.getTitle(), Field.Store.NO));
+        }
+        if (book.getAuthor() != null) {
+            document.add(new TextField(AUTHOR, book.getAuthor(), Field.Store.NO));
+        }
+        if (book.getIsbn() != null) {
+            document.add(new TextField(ISBN, book.getIsbn(), Field.Store.NO));
+        }
+        return document;
+    }
+}
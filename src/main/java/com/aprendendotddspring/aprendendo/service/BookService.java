@@ -3,8 +3,10 @@ package com.aprendendotddspring.aprendendo.service;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -18,5 +20,14 @@ public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    Slice<Book> findSlice(Book filter, Pageable pageRequest);
+
+    Slice<Book> findAfter(Book filter, Long cursor, int size);
+
+    Page<Book> search(String text, Pageable pageRequest);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    /** Entrega todos os livros, em ordem de id, sem carregar todos em memoria. */
+    void exportAll(Consumer<Book> action);
 }
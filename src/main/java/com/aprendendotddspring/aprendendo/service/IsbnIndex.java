@@ -0,0 +1,87 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Indice em memoria ISBN -> id do livro, limitado e com despejo LRU.
+ * Mantido em sincronia pelo BookService (write-through) em save/update/delete.
+ * Um miss nao significa que o ISBN nao existe, apenas que nao esta no indice.
+ */
+@Component
+public class IsbnIndex {
+
+    private final int maxSize;
+    private final Map<String, Long> idsByIsbn;
+    private final Map<Long, String> isbnsById = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public IsbnIndex(@Value("${application.isbn.index.max-size:10000}") int maxSize, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.idsByIsbn = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > IsbnIndex.this.maxSize) {
+                    isbnsById.remove(eldest.getValue());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("library.isbn.index.lookups")
+                .tag("result", "hit")
+                .register(registry);
+        this.misses = Counter.builder("library.isbn.index.lookups")
+                .tag("result", "miss")
+                .register(registry);
+        this.evictions = Counter.builder("library.isbn.index.evictions")
+                .register(registry);
+        Gauge.builder("library.isbn.index.size", this, IsbnIndex::size)
+                .register(registry);
+    }
+
+    public synchronized Optional<Long> getId(String isbn) {
+        Long id = isbn == null ? null : idsByIsbn.get(isbn);
+        if (id == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(id);
+    }
+
+    public synchronized void put(String isbn, Long id) {
+        if (isbn == null || id == null) {
+            return;
+        }
+        String previousIsbn = isbnsById.put(id, isbn);
+        if (previousIsbn != null && !previousIsbn.equals(isbn)) {
+            idsByIsbn.remove(previousIsbn);
+        }
+        idsByIsbn.put(isbn, id);
+    }
+
+    public synchronized void remove(Long id) {
+        String isbn = isbnsById.remove(id);
+        if (isbn != null) {
+            idsByIsbn.remove(isbn);
+        }
+    }
+
+    public synchronized int size() {
+        return idsByIsbn.size();
+    }
+}
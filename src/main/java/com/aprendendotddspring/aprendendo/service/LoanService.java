@@ -1,14 +1,18 @@
 package com.aprendendotddspring.aprendendo.service;
 
 import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
 
@@ -18,9 +22,20 @@ public interface LoanService {
 
     Loan update(Loan loan);
 
+    ReturnedLoansReportDTO returnLoans(Collection<Long> ids);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable);
+
+    Slice<Loan> findAfter(LoanFilterDTO filter, Long cursor, int size);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable);
+
+    Slice<Loan> getLateLoans(Long cursor, int size);
+
+    /** Entrega todos os emprestimos com o livro, em ordem de id, sem carregar todos em memoria. */
+    void exportAll(Consumer<Loan> action);
 }
@@ -0,0 +1,19 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Leituras nao bloqueantes do catalogo para a API reativa; as escritas
+ * continuam no BookService e no LoanService.
+ */
+public interface ReactiveCatalogService {
+
+    Mono<Book> getById(Long id);
+
+    Flux<Book> find(Book filter);
+
+    Flux<Loan> getLoansByBook(Long bookId);
+}
@@ -2,13 +2,18 @@ package com.aprendendotddspring.aprendendo.service;
 
 import com.aprendendotddspring.aprendendo.entity.Loan;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
@@ -18,18 +23,58 @@ public class ScheduleService {
     private final LoanService loanService;
     private final EmailService emailService;
 
-    @Value("{application.mail.lateloans.message}")
+    @Value("${application.mail.lateloans.message}")
     private String mensagem;
 
+    @Value("${application.mail.lateloans.chunk-size:500}")
+    private int chunkSize;
+
+    /** Com a fila de emails cheia a execucao para aqui e a proxima retomada continua deste cursor. */
+    private volatile Long resumeCursor;
+    private volatile boolean stopped;
+
+    /**
+     * Percorre os emprestimos atrasados em blocos pelo id e envia um email por
+     * bloco, entao a memoria usada nao depende de quantos estao atrasados.
+     */
     @Scheduled(cron = CRON_LATE_LOANS)
     public  void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> emailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+        sendLateLoansAfter(null);
+    }
 
+    /** Continua uma execucao interrompida pela fila de emails cheia, sem recomecar do inicio. */
+    @Scheduled(fixedDelayString = "${application.mail.lateloans.resume-interval:60000}")
+    public void resumeLateLoans(){
+        if (stopped) {
+            sendLateLoansAfter(resumeCursor);
+        }
+    }
 
+    private void sendLateLoansAfter(Long cursor){
+        stopped = false;
+        Slice<Loan> lateLoans;
+        do {
+            lateLoans = loanService.getLateLoans(cursor, chunkSize);
+            List<String> emailsList = lateLoans.getContent().stream()
+                    .map(loan -> loan.getCustomerEmail())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
 
-        emailService.sendMails(mensagem, emailsList);
+            if (!emailsList.isEmpty()) {
+                try {
+                    emailService.sendMails(mensagem, emailsList);
+                } catch (RejectedExecutionException e) {
+                    // o bloco inteiro e reenviado na retomada, inclusive os lotes que ja entraram na fila
+                    log.warn("late loan notices stopped after loan {}: {}", cursor, e.getMessage());
+                    resumeCursor = cursor;
+                    stopped = true;
+                    return;
+                }
+            }
+            if (lateLoans.hasContent()) {
+                List<Loan> content = lateLoans.getContent();
+                cursor = content.get(content.size() - 1).getId();
+            }
+        } while (lateLoans.hasNext());
     }
 }
@@ -0,0 +1,126 @@
+package com.aprendendotddspring.aprendendo.service.impl;
+
+import com.aprendendotddspring.aprendendo.api.dto.BookImportErrorDTO;
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.service.BookImportRow;
+import com.aprendendotddspring.aprendendo.service.BookImportService;
+import com.aprendendotddspring.aprendendo.service.BookSearchIndex;
+import com.aprendendotddspring.aprendendo.service.BookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Importa livros em blocos: cada bloco tem a unicidade de isbn verificada com
+ * uma unica consulta e e inserido com saveAll em lotes JDBC. Se outro cadastro
+ * concorrente violar a constraint no meio do bloco, o bloco e refeito livro a
+ * livro pelo BookService para isolar as linhas rejeitadas.
+ */
+@Slf4j
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private final BookRepository repository;
+    private final BookService bookService;
+    private final BookSearchIndex searchIndex;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public BookImportServiceImpl(BookRepository repository,
+                                 BookService bookService,
+                                 BookSearchIndex searchIndex,
+                                 @Value("${application.books.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${application.books.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.repository = repository;
+        this.bookService = bookService;
+        this.searchIndex = searchIndex;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public BookImportReportDTO importBooks(Iterator<BookImportRow> rows) {
+        BookImportReportDTO report = new BookImportReportDTO();
+        List<BookImportRow> chunk = new ArrayList<>(chunkSize);
+
+        while (rows.hasNext()) {
+            BookImportRow row = rows.next();
+            report.setReceived(report.getReceived() + 1);
+            if (row.getError() != null) {
+                reject(report, row, row.getError());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+
+        log.info("book import finished: {} received, {} imported, {} rejected",
+                report.getReceived(), report.getImported(), report.getRejected());
+        return report;
+    }
+
+    private void importChunk(List<BookImportRow> chunk, BookImportReportDTO report) {
+        Map<String, BookImportRow> byIsbn = new LinkedHashMap<>();
+        for (BookImportRow row : chunk) {
+            if (byIsbn.putIfAbsent(row.getIsbn(), row) != null) {
+                reject(report, row, "ISBN duplicado na importação");
+            }
+        }
+        for (String isbn : repository.findExistingIsbns(byIsbn.keySet())) {
+            reject(report, byIsbn.remove(isbn), "ISBN já cadastrado");
+        }
+        if (byIsbn.isEmpty()) {
+            return;
+        }
+
+        List<Book> books = new ArrayList<>(byIsbn.size());
+        byIsbn.values().forEach(row -> books.add(row.getBook()));
+        try {
+            repository.saveAll(books);
+            searchIndex.indexAll(books);
+            report.setImported(report.getImported() + books.size());
+        } catch (DataIntegrityViolationException e) {
+            log.warn("book import chunk conflicted with a concurrent insert, retrying row by row");
+            byIsbn.values().forEach(row -> saveOne(row, report));
+        }
+    }
+
+    private void saveOne(BookImportRow row, BookImportReportDTO report) {
+        // id e versao foram gerados na tentativa em lote que sofreu rollback
+        row.getBook().setId(null);
+        row.getBook().setVersion(null);
+        try {
+            bookService.save(row.getBook());
+            report.setImported(report.getImported() + 1);
+        } catch (BusinessException e) {
+            reject(report, row, e.getMessage());
+        }
+    }
+
+    private void reject(BookImportReportDTO report, BookImportRow row, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(BookImportErrorDTO.builder()
+                    .row(row.getRow())
+                    .isbn(row.getIsbn())
+                    .message(message)
+                    .build());
+        }
+    }
+}
@@ -4,34 +4,53 @@ import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.service.BookSearchIndex;
 import com.aprendendotddspring.aprendendo.service.BookService;
+import com.aprendendotddspring.aprendendo.service.IsbnIndex;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
 
 
     private BookRepository repository;
+    private IsbnIndex isbnIndex;
+    private BookSearchIndex searchIndex;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, IsbnIndex isbnIndex, BookSearchIndex searchIndex) {
         this.repository = repository;
+        this.isbnIndex = isbnIndex;
+        this.searchIndex = searchIndex;
     }
 
     @Override
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())){
+        if(isbnIndex.getId(book.getIsbn()).isPresent()){
             throw new BusinessException("ISBN já cadastrado");
         }
 
-        return repository.save(book);
+        // a unicidade e garantida pela constraint uk_book_isbn, sem consulta previa
+        Book savedBook = saveCheckingIsbn(book);
+        isbnIndex.put(savedBook.getIsbn(), savedBook.getId());
+        searchIndex.index(savedBook);
+        return savedBook;
     }
 
     @Override
@@ -45,6 +64,8 @@ public class BookServiceImpl implements BookService {
             throw new IllegalArgumentException("Id book can't be null.");
         }
         this.repository.delete(book);
+        isbnIndex.remove(book.getId());
+        searchIndex.remove(book.getId());
     }
 
     @Override
@@ -52,23 +73,78 @@ public class BookServiceImpl implements BookService {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Id book can't be null.");
         }
-        repository.save(book);
-        return book;
+        // com o livro desanexado o merge devolve outra instancia, com a nova versao e lastModified
+        Book saved = saveCheckingIsbn(book);
+        isbnIndex.put(saved.getIsbn(), saved.getId());
+        searchIndex.index(saved);
+        return saved;
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        return repository.findAll(example(filter), pageRequest);
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable pageRequest) {
+        return repository.findAllSliced(example(filter), pageRequest);
+    }
 
-        Example<Book> example = Example.of(filter, ExampleMatcher
+    @Override
+    public Slice<Book> findAfter(Book filter, Long cursor, int size) {
+        return repository.findAllAfter(example(filter), cursor, size);
+    }
+
+    @Override
+    public Page<Book> search(String text, Pageable pageRequest) {
+        Page<Long> ids = searchIndex.search(text, pageRequest);
+        Map<Long, Book> books = repository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<Book> ranked = ids.getContent().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ranked, pageRequest, ids.getTotalElements());
+    }
+
+    private Book saveCheckingIsbn(Book book) {
+        try {
+            return repository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, Book.UNIQUE_ISBN)) {
+                throw new BusinessException("ISBN já cadastrado");
+            }
+            throw e;
+        }
+    }
+
+    private Example<Book> example(Book filter) {
+        return Example.of(filter, ExampleMatcher
                 .matching()
                 .withIgnoreCase()
                 .withIgnoreNullValues()
                 .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING ));
-        return repository.findAll(example, pageRequest);
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        Optional<Long> indexedId = isbnIndex.getId(isbn);
+        if(indexedId.isPresent()){
+            Optional<Book> indexed = repository.findById(indexedId.get());
+            if(indexed.isPresent() && isbn.equals(indexed.get().getIsbn())){
+                return indexed;
+            }
+            isbnIndex.remove(indexedId.get());
+        }
+
+        Optional<Book> book = repository.findByIsbn(isbn);
+        book.ifPresent(found -> isbnIndex.put(found.getIsbn(), found.getId()));
+        return book;
+    }
+
+    @Override
+    public void exportAll(Consumer<Book> action) {
+        repository.scrollAll(action);
     }
 }
@@ -0,0 +1,25 @@
+package com.aprendendotddspring.aprendendo.service.impl;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Identifica qual constraint da base causou uma DataIntegrityViolationException,
+ * para os servicos traduzirem apenas as violacoes que sao regra de negocio.
+ */
+final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    static boolean isViolationOf(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                // o H2 reporta o nome em maiusculas e com sufixo, ex: PUBLIC.UK_BOOK_ISBN_INDEX_1
+                String name = ((ConstraintViolationException) cause).getConstraintName();
+                return name != null && name.toLowerCase().contains(constraint);
+            }
+        }
+        return false;
+    }
+}
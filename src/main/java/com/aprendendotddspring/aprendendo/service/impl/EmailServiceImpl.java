@@ -1,36 +1,185 @@
 package com.aprendendotddspring.aprendendo.service.impl;
 
+import com.aprendendotddspring.aprendendo.config.MailDispatchProperties;
+import com.aprendendotddspring.aprendendo.config.VirtualThreads;
 import com.aprendendotddspring.aprendendo.service.EmailService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Envia os emails de forma assincrona: cada chamada vira lotes de mensagens
+ * (uma por destinatario) colocados numa fila limitada e enviados por um pool
+ * de workers, cada lote numa unica conexao SMTP e com retentativas.
+ * Quem chama so espera se a fila estiver cheia, e no maximo offerTimeout ms:
+ * depois disso o lote e rejeitado com RejectedExecutionException.
+ * Com application.threads.virtual os workers sao virtual threads; o numero de
+ * workers continua limitando as conexoes simultaneas com o SMTP.
+ * Cada tentativa de envio de lote e medida em {@code library.mail.batch}.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("{application.mail.remetent}")
-    private String remetent;
+    private static final String SUBJECT = "Livro que vc colotiou!!";
 
+    private final JavaMailSender javaMailSender;
+    private final MailDispatchProperties properties;
+    private final String remetent;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry registry;
 
+    public EmailServiceImpl(JavaMailSender javaMailSender,
+                            MailDispatchProperties properties,
+                            @Value("${application.mail.remetent}") String remetent,
+                            @Value("${application.threads.virtual:false}") boolean virtualThreads,
+                            MeterRegistry registry) {
+        this.javaMailSender = javaMailSender;
+        this.registry = registry;
+        this.properties = properties;
+        this.remetent = remetent;
 
-    private final JavaMailSender javaMailSender;
+        this.executor = new ThreadPoolExecutor(
+                properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                virtualThreads ? VirtualThreads.factory("mail-sender-vt-") : platformThreads(),
+                this::waitForRoom);
+    }
+
+    /**
+     * Back-pressure limitado: segura quem chama por ate offerTimeout ms esperando espaco na
+     * fila e rejeita o lote se ela continuar cheia, para um SMTP lento nao prender a thread
+     * do agendador.
+     */
+    private void waitForRoom(Runnable runnable, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Mail sender is shut down.");
+        }
+        try {
+            if (!pool.getQueue().offer(runnable, properties.getOfferTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException(
+                        "Mail queue still full after " + properties.getOfferTimeout() + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the mail queue.", e);
+        }
+    }
+
+    private static ThreadFactory platformThreads() {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "mail-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
     @Override
     public void sendMails(String mensagem, List<String> emailsList) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        String[] mails = emailsList.toArray(new String[emailsList.size()]);
+        List<SimpleMailMessage> batch = new ArrayList<>(properties.getBatchSize());
+        for (String email : emailsList) {
+            batch.add(message(mensagem, email));
+            if (batch.size() == properties.getBatchSize()) {
+                dispatch(batch);
+                batch = new ArrayList<>(properties.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
 
+    private void dispatch(List<SimpleMailMessage> batch) {
+        executor.execute(() -> send(batch));
+    }
+
+    private void send(List<SimpleMailMessage> batch) {
+        List<SimpleMailMessage> pending = batch;
+        long backoff = properties.getBackoff();
+        for (int attempt = 1; ; attempt++) {
+            Timer.Sample sample = Timer.start(registry);
+            try {
+                javaMailSender.send(pending.toArray(new SimpleMailMessage[0]));
+                sample.stop(batchTimer("success"));
+                return;
+            } catch (MailException e) {
+                sample.stop(batchTimer("failure"));
+                pending = failedMessages(e, pending);
+                if (attempt >= properties.getMaxAttempts()) {
+                    log.error("giving up sending {} emails after {} attempts", pending.size(), attempt, e);
+                    return;
+                }
+                log.warn("failed to send {} emails, attempt {} of {}: {}",
+                        pending.size(), attempt, properties.getMaxAttempts(), e.getMessage());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("interrupted before resending {} emails", pending.size());
+                return;
+            }
+            backoff *= 2;
+        }
+    }
+
+    private Timer batchTimer(String outcome) {
+        return Timer.builder("library.mail.batch")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+
+    /** Reenvia so as mensagens que falharam quando o servidor informa quais foram. */
+    private List<SimpleMailMessage> failedMessages(MailException e, List<SimpleMailMessage> sent) {
+        if (!(e instanceof MailSendException) || ((MailSendException) e).getFailedMessages().isEmpty()) {
+            return sent;
+        }
+        List<SimpleMailMessage> failed = new ArrayList<>();
+        for (Object message : ((MailSendException) e).getFailedMessages().keySet()) {
+            if (message instanceof SimpleMailMessage) {
+                failed.add((SimpleMailMessage) message);
+            }
+        }
+        return failed.isEmpty() ? sent : failed;
+    }
+
+    private SimpleMailMessage message(String mensagem, String email) {
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro que vc colotiou!!");
+        mailMessage.setSubject(SUBJECT);
         mailMessage.setText(mensagem);
-        mailMessage.setTo(mails);
+        mailMessage.setTo(email);
+        return mailMessage;
+    }
 
-        javaMailSender.send(mailMessage);
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(properties.getOfferTimeout(), TimeUnit.MILLISECONDS)) {
+            log.warn("{} email batches were not sent before shutdown", executor.getQueue().size());
+            executor.shutdownNow();
+        }
     }
 }
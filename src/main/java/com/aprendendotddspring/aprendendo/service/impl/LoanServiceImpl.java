@@ -1,20 +1,32 @@
 package com.aprendendotddspring.aprendendo.service.impl;
 
 import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
 import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
 import com.aprendendotddspring.aprendendo.service.LoanService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
+
+    // limite de ids por "in" para nao estourar o numero de parametros do banco
+    private static final int RETURN_CHUNK = 1000;
+
     private final LoanRepostory repository;
 
     public LoanServiceImpl(LoanRepostory repository) {
@@ -23,11 +35,8 @@ public class LoanServiceImpl implements LoanService {
 
     @Override
     public Loan save(Loan loan) {
-
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Book already loaned");
-        }
-        return repository.save(loan);
+        // emprestimo aberto duplicado e barrado pela constraint uk_loan_active_book, sem count previo
+        return saveCheckingActiveBook(loan);
     }
 
     @Override
@@ -38,12 +47,52 @@ public class LoanServiceImpl implements LoanService {
     @Override
     public Loan update(Loan loan) {
 
-        return repository.save(loan);
+        return saveCheckingActiveBook(loan);
+    }
+
+    @Override
+    public ReturnedLoansReportDTO returnLoans(Collection<Long> ids) {
+        ReturnedLoansReportDTO report = new ReturnedLoansReportDTO();
+        List<Long> distinct = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        for (int from = 0; from < distinct.size(); from += RETURN_CHUNK) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + RETURN_CHUNK, distinct.size()));
+            Set<Long> found = new HashSet<>(repository.findExistingIds(chunk));
+            chunk.stream()
+                    .filter(id -> !found.contains(id))
+                    .forEach(report.getNotFound()::add);
+            if (found.isEmpty()) {
+                continue;
+            }
+            Set<Long> alreadyReturned = new HashSet<>(repository.findReturnedIds(found));
+            chunk.stream()
+                    .filter(alreadyReturned::contains)
+                    .forEach(report.getAlreadyReturned()::add);
+            found.removeAll(alreadyReturned);
+            if (!found.isEmpty()) {
+                // conta so as linhas que o update mudou, caso outra requisicao devolva algum antes
+                report.setReturned(report.getReturned() + repository.returnAll(found));
+            }
+        }
+        return report;
     }
 
     @Override
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustumer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+        return repository.findByIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+    }
+
+    @Override
+    public Slice<Loan> findSlice(LoanFilterDTO filterDTO, Pageable pageable) {
+        return repository.findSliceByIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+    }
+
+    @Override
+    public Slice<Loan> findAfter(LoanFilterDTO filterDTO, Long cursor, int size) {
+        return repository.findByIsbnOrCustomerAfter(filterDTO.getIsbn(), filterDTO.getCustomer(), cursor, size);
     }
 
     @Override
@@ -52,10 +101,31 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        return repository.findSliceByBook(book, pageable);
+    }
+
+    private Loan saveCheckingActiveBook(Loan loan) {
+        try {
+            return repository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, Loan.ACTIVE_BOOK)) {
+                throw new BusinessException("Book already loaned");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Slice<Loan> getLateLoans(Long cursor, int size) {
         final Integer loansDays=4;
         LocalDate threDaysAgo = LocalDate.now().minusDays(loansDays);
-        return repository.findByLoansDatesLessThanAndNotReturned(threDaysAgo);
+        return repository.findLateLoansAfter(threDaysAgo, cursor == null ? 0L : cursor, PageRequest.of(0, size));
+    }
+
+    @Override
+    public void exportAll(Consumer<Loan> action) {
+        repository.scrollAllWithBook(action);
     }
 
 
@@ -0,0 +1,34 @@
+package com.aprendendotddspring.aprendendo.service.impl;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.model.repository.ReactiveCatalogRepository;
+import com.aprendendotddspring.aprendendo.service.ReactiveCatalogService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveCatalogServiceImpl implements ReactiveCatalogService {
+
+    private ReactiveCatalogRepository repository;
+
+    public ReactiveCatalogServiceImpl(ReactiveCatalogRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return repository.findBookById(id);
+    }
+
+    @Override
+    public Flux<Book> find(Book filter) {
+        return repository.findBooks(filter);
+    }
+
+    @Override
+    public Flux<Loan> getLoansByBook(Long bookId) {
+        return repository.findLoansByBook(bookId);
+    }
+}
@@ -0,0 +1,25 @@
+-- schema equivalente ao que o Hibernate gerava com ddl-auto
+
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id bigint not null,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255),
+    constraint pk_book primary key (id),
+    constraint uk_book_isbn unique (isbn)
+);
+
+create table loan (
+    id bigint generated by default as identity,
+    customer varchar(100),
+    id_book bigint,
+    loan_date date,
+    returned boolean,
+    customer_email varchar(255),
+    active_book_id bigint,
+    constraint pk_loan primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book (id),
+    constraint uk_loan_active_book unique (active_book_id)
+);
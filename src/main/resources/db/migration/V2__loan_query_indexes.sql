@@ -0,0 +1,17 @@
+-- emprestimo aberto passa a ser returned = false em vez de null: as consultas
+-- filtram por igualdade e o H2 consegue usar os indices abaixo
+update loan set returned = false where returned is null;
+alter table loan alter column returned set default false;
+alter table loan alter column returned set not null;
+
+-- existsByBookAndNotReturned e findByBook: livro + returned
+create index idx_loan_book_returned on loan (id_book, returned);
+
+-- findLateLoansAfter e findByLoansDatesLessThanAndNotReturned: returned = false and loan_date <= ?
+create index idx_loan_returned_loan_date on loan (returned, loan_date);
+
+-- filtro de emprestimos por cliente
+create index idx_loan_customer on loan (customer);
+
+-- o H2 nao tem indice parcial; a unicidade de "um emprestimo aberto por livro"
+-- ja e garantida por uk_loan_active_book, que so tem valor nos emprestimos abertos
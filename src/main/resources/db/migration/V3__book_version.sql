@@ -0,0 +1,4 @@
+-- versao (ETag) e instante da ultima alteracao (Last-Modified) dos livros;
+-- os defaults cobrem as linhas existentes e inserts feitos direto em SQL
+alter table book add column version bigint default 0 not null;
+alter table book add column last_modified timestamp default current_timestamp not null;
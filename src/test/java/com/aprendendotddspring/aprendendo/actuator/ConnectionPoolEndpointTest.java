@@ -0,0 +1,64 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionPoolEndpointTest {
+
+    HikariDataSource dataSource;
+
+    ConnectionPoolEndpoint endpoint;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:connectionpool;DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName("test-pool");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(2);
+        dataSource.setMetricRegistry(registry);
+
+        endpoint = new ConnectionPoolEndpoint(ProxyDataSourceBuilder.create(dataSource).build(), registry);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("Deve informar a configuracao do pool antes da primeira conexao")
+    public void poolNotStartedTest(){
+        Map<String, Object> report = endpoint.connectionPool();
+
+        assertThat(report).containsEntry("pool", "test-pool")
+                .containsEntry("maximumPoolSize", 2)
+                .containsEntry("active", 0)
+                .doesNotContainKey("acquire");
+    }
+
+    @Test
+    @DisplayName("Deve informar conexoes ativas e o tempo de espera por conexao")
+    @SuppressWarnings("unchecked")
+    public void poolUsageTest() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, Object> report = endpoint.connectionPool();
+
+            assertThat(report).containsEntry("active", 1)
+                    .containsEntry("pending", 0)
+                    .containsEntry("timeouts", 0L);
+            assertThat((Map<String, Object>) report.get("acquire")).containsEntry("count", 1L);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.service.BookSearchIndex;
+import com.aprendendotddspring.aprendendo.service.BookService;
+import com.aprendendotddspring.aprendendo.service.IsbnIndex;
+import com.aprendendotddspring.aprendendo.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.when;
+
+public class LibraryMetricsAspectTest {
+
+    PrometheusMeterRegistry registry;
+
+    BookRepository repository;
+
+    BookRepository timedRepository;
+
+    IsbnIndex isbnIndex;
+
+    BookService service;
+
+    @BeforeEach
+    public void setUp(){
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        LibraryMetricsAspect aspect = new LibraryMetricsAspect(registry);
+
+        repository = Mockito.mock(BookRepository.class);
+        timedRepository = proxy(repository, aspect);
+        isbnIndex = new IsbnIndex(100, new SimpleMeterRegistry());
+        service = proxy(new BookServiceImpl(timedRepository, isbnIndex, Mockito.mock(BookSearchIndex.class)), aspect);
+    }
+
+    @Test
+    @DisplayName("Deve medir os metodos do service e do repository com histograma")
+    public void timeServiceAndRepositoryTest(){
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(repository.findByIsbn("123")).thenReturn(Optional.of(book));
+
+        service.getBookByIsbn("123");
+
+        Timer serviceTimer = registry.get(LibraryMetricsAspect.SERVICE_TIMER)
+                .tag("class", "BookServiceImpl").tag("method", "getBookByIsbn").tag("exception", "none")
+                .timer();
+        Timer repositoryTimer = registry.get(LibraryMetricsAspect.REPOSITORY_TIMER)
+                .tag("repository", "BookRepository").tag("method", "findByIsbn")
+                .timer();
+        assertThat(serviceTimer.count()).isEqualTo(1);
+        assertThat(repositoryTimer.count()).isEqualTo(1);
+        assertThat(registry.scrape())
+                .contains("library_service_seconds_bucket{class=\"BookServiceImpl\",exception=\"none\",method=\"getBookByIsbn\",le=\"0.001\",}")
+                .contains("library_repository_seconds_bucket{exception=\"none\",method=\"findByIsbn\",repository=\"BookRepository\",le=\"10.0\",}");
+    }
+
+    @Test
+    @DisplayName("Deve contar as rejeicoes de negocio pelo motivo")
+    public void countBusinessRejectionsTest(){
+        isbnIndex.put("123", 1L);
+        Book book = Book.builder().isbn("123").build();
+
+        Throwable first = catchThrowable(() -> service.save(book));
+        catchThrowable(() -> service.save(book));
+
+        assertThat(first).isInstanceOf(BusinessException.class);
+        assertThat(registry.get(LibraryMetricsAspect.REJECTIONS).tag("reason", "ISBN já cadastrado").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get(LibraryMetricsAspect.SERVICE_TIMER)
+                .tag("method", "save").tag("exception", "BusinessException").timer().count())
+                .isEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, LibraryMetricsAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
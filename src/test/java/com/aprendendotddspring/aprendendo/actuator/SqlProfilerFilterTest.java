@@ -0,0 +1,47 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlProfilerFilterTest {
+
+    SqlProfiler profiler;
+
+    SqlProfilerFilter filter;
+
+    @BeforeEach
+    public void setUp(){
+        profiler = new SqlProfiler(200);
+        filter = new SqlProfilerFilter(profiler);
+    }
+
+    @Test
+    @DisplayName("Deve agrupar pelo padrao da URI as requisicoes sem controller")
+    public void patternEndpointTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/metrics/jvm.memory.used");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/actuator/metrics/{requiredMetricName}");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(profiler.getEndpoints()).containsOnlyKeys("GET /actuator/metrics/{requiredMetricName}");
+    }
+
+    @Test
+    @DisplayName("Deve juntar num unico endpoint as requisicoes que nao casam com nenhum padrao")
+    public void unmappedEndpointTest() throws Exception {
+        for (String uri : new String[]{"/wp-login.php", "/.env", "/api/books/1/nada"}) {
+            filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        filter.doFilter(new MockHttpServletRequest("PROPFIND", "/"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(profiler.getEndpoints()).containsOnlyKeys("GET UNMAPPED", "OTHER UNMAPPED");
+        assertThat(profiler.getEndpoints().get("GET UNMAPPED").getCount()).isEqualTo(3);
+    }
+}
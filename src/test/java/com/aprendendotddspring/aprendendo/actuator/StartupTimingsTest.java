@@ -0,0 +1,113 @@
+package com.aprendendotddspring.aprendendo.actuator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class StartupTimingsTest {
+
+    @Test
+    @DisplayName("Deve medir a criacao dos beans descontando as dependencias")
+    public void beanTimingsTest(){
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(StartupTimings.class, SlowBeans.class)) {
+            StartupTimings timings = context.getBean(StartupTimings.class);
+
+            StartupTimings.BeanTiming slow = timing(timings, "slow");
+            StartupTimings.BeanTiming dependent = timing(timings, "dependent");
+
+            assertThat(slow.getSelfMillis()).isGreaterThanOrEqualTo(50);
+            assertThat(dependent.getTotalMillis()).isGreaterThanOrEqualTo(slow.getTotalMillis());
+            assertThat(dependent.getSelfMillis()).isLessThan(50);
+            assertThat(timings.getBeans().get(0).getName()).isEqualTo("slow");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve medir a execucao dos runners")
+    public void runnerTimingsTest() throws Exception {
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(StartupTimings.class, SlowBeans.class)) {
+            StartupTimings timings = context.getBean(StartupTimings.class);
+
+            context.getBean(CommandLineRunner.class).run();
+
+            assertThat(timings.getRunners()).hasSize(1);
+            assertThat(timings.getRunners().get(0).getName()).isEqualTo("runner");
+            assertThat(timings.getRunners().get(0).isSuccess()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Nao deve medir beans criados depois do startup")
+    public void afterReadyTest(){
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(StartupTimings.class, SlowBeans.class)) {
+            StartupTimings timings = context.getBean(StartupTimings.class);
+            int created = timings.getBeans().size();
+
+            timings.onApplicationEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context));
+            context.getBean("prototype");
+
+            assertThat(timings.getBeans()).hasSize(created);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve registrar tarefas de startup que falharam")
+    public void failedTaskTest(){
+        StartupTimings timings = new StartupTimings();
+
+        Throwable exception = catchThrowable(() -> timings.task("mail", () -> {
+            throw new IllegalStateException("smtp fora do ar");
+        }));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        assertThat(timings.getTasks()).hasSize(1);
+        assertThat(timings.getTasks().get(0).isSuccess()).isFalse();
+    }
+
+    private StartupTimings.BeanTiming timing(StartupTimings timings, String name){
+        return timings.getBeans().stream()
+                .filter(timing -> timing.getName().equals(name))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+
+    @Configuration
+    static class SlowBeans {
+
+        // declarado antes para que o slow seja criado dentro dele
+        @Bean
+        public StringBuilder dependent(String slow){
+            return new StringBuilder(slow);
+        }
+
+        @Bean
+        public String slow() throws InterruptedException {
+            Thread.sleep(50);
+            return "slow";
+        }
+
+        @Bean
+        @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+        public Object prototype(){
+            return new Object();
+        }
+
+        @Bean
+        public CommandLineRunner runner(){
+            return args -> { };
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.aprendendotddspring.aprendendo.api.mapper;
+
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DtoMapperTest {
+
+    DtoMapper mapper = new DtoMapper();
+
+    ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    @DisplayName("Deve mapear livro igual ao ModelMapper")
+    public void bookMappingTest(){
+        Book book = Book.builder().id(11L).title("terminal").author("Vim").isbn("321").build();
+
+        BooktDTO dto = mapper.toDto(book);
+
+        assertThat(dto).isEqualTo(modelMapper.map(book, BooktDTO.class));
+        assertThat(mapper.toEntity(dto)).isEqualTo(modelMapper.map(dto, Book.class));
+    }
+
+    @Test
+    @DisplayName("Deve mapear emprestimo igual ao ModelMapper")
+    public void loanMappingTest(){
+        Book book = Book.builder().id(11L).title("terminal").author("Vim").isbn("321").build();
+        Loan loan = Loan.builder()
+                .id(1L)
+                .book(book)
+                .customer("Fulano")
+                .customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+
+        LoanDTO expected = modelMapper.map(loan, LoanDTO.class);
+        expected.setBook(modelMapper.map(book, BooktDTO.class));
+
+        assertThat(mapper.toDto(loan)).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Deve mapear o filtro de emprestimo igual ao ModelMapper")
+    public void loanFilterMappingTest(){
+        LoanDTO dto = LoanDTO.builder().isbn("321").customer("Fulano").build();
+
+        LoanFilterDTO filter = mapper.toFilter(dto);
+
+        assertThat(filter).isEqualTo(modelMapper.map(dto, LoanFilterDTO.class));
+    }
+}
@@ -3,6 +3,7 @@ package com.aprendendotddspring.aprendendo.api.resource;
 import com.aprendendotddspring.aprendendo.api.ApplicationControllerAdvice;
 import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.api.exceptions.ServiceUnavailableException;
 import com.aprendendotddspring.aprendendo.config.Beans;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
@@ -27,6 +28,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
@@ -37,6 +40,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 
 import javax.swing.text.html.Option;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -60,6 +64,8 @@ public class BookControllerTest {
     //primeiro passo é definir a rota que iriar ser trabalhada
     static final String BOOK_API = "/api/books";
 
+    static final Instant LAST_MODIFIED = Instant.parse("2020-06-01T10:15:30Z");
+
     @Autowired
     MockMvc mvc;
 
@@ -100,6 +106,13 @@ public class BookControllerTest {
 
     }
 
+    private Book createVersionedBook(Long version) {
+        Book book = createValidBook();
+        book.setVersion(version);
+        book.setLastModified(LAST_MODIFIED);
+        return book;
+    }
+
     private Book createValidBook() {
         return Book.builder()
                 .id(1L)
@@ -192,6 +205,79 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve retornar ETag e Last-Modified com os detalhes do livro")
+    public void getBookEtagTest() throws Exception {
+        Book book = createVersionedBook(3L);
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + book.getId())))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""))
+                .andExpect(header().dateValue("Last-Modified", LAST_MODIFIED.toEpochMilli()));
+    }
+
+    @Test
+    @DisplayName("Deve retornar not modified sem corpo quando o ETag do cliente for o atual")
+    public void getBookNotModifiedByEtagTest() throws Exception {
+        Book book = createVersionedBook(3L);
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + book.getId()))
+                        .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + book.getId()))
+                        .header("If-None-Match", "\"1-2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar not modified quando o livro nao mudou desde a data do cliente")
+    public void getBookNotModifiedSinceTest() throws Exception {
+        Book book = createVersionedBook(3L);
+        BDDMockito.given(service.getById(book.getId())).willReturn(Optional.of(book));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfModifiedSince(LAST_MODIFIED.plusSeconds(1).toEpochMilli());
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + book.getId())).headers(headers))
+                .andExpect(status().isNotModified());
+
+        headers.setIfModifiedSince(LAST_MODIFIED.minusSeconds(60).toEpochMilli());
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("/" + book.getId())).headers(headers))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Deve retornar not modified na listagem enquanto a pagina nao mudar")
+    public void findBooksNotModifiedTest() throws Exception {
+        Book book = createVersionedBook(3L);
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+
+        String etag = mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        book.setVersion(4L);
+        mvc
+                .perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)));
+    }
+
     @Test
     @DisplayName("Deve retornar not found quando o livro procurado não existir")
     public void bookNotFountTest() throws Exception {
@@ -336,4 +422,81 @@ public class BookControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros paginando por cursor")
+    public void findBookByCursorTest() throws Exception {
+        Book book = createValidBook();
+
+        BDDMockito.given( service.findAfter(Mockito.any(Book.class), Mockito.eq(10L), Mockito.eq(1)) )
+                .willReturn( new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 1), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?author=Vim&cursor=10&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("nextCursor").value(book.getId()));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros sem o total de elementos")
+    public void findBookSliceTest() throws Exception {
+        Book book = createValidBook();
+
+        BDDMockito.given( service.findSlice(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
+                .willReturn( new SliceImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?title=terminal&page=0&size=100&count=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("last").value(false))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros pelo texto")
+    public void searchBooksTest() throws Exception {
+        Book book = createValidBook();
+
+        BDDMockito.given( service.search(Mockito.eq("terminal vim"), Mockito.any(Pageable.class)) )
+                .willReturn( new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 20), 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/search?q=terminal vim"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value(book.getIsbn()))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 enquanto o indice de busca estiver sendo construido")
+    public void searchBooksUnavailableTest() throws Exception {
+        BDDMockito.given( service.search(Mockito.anyString(), Mockito.any(Pageable.class)) )
+                .willThrow(new ServiceUnavailableException("Book search index is still being built."));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/search?q=vim"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("errors[0]").value("Book search index is still being built."));
+    }
 }
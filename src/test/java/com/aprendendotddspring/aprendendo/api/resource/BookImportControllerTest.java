@@ -0,0 +1,152 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.ApplicationControllerAdvice;
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+import com.aprendendotddspring.aprendendo.config.Beans;
+import com.aprendendotddspring.aprendendo.service.BookImportRow;
+import com.aprendendotddspring.aprendendo.service.BookImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = {
+        BookImportController.class,
+        Beans.class,
+        ApplicationControllerAdvice.class
+})
+public class BookImportControllerTest {
+
+    static final String IMPORT_API = "/api/books/import";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookImportService service;
+
+    List<BookImportRow> rows;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp(){
+        rows = new ArrayList<>();
+        BDDMockito.given(service.importBooks(any())).willAnswer(invocation -> {
+            ((Iterator<BookImportRow>) invocation.getArgument(0)).forEachRemaining(rows::add);
+            return BookImportReportDTO.builder().received(rows.size()).build();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um array JSON")
+    public void importJsonTest() throws Exception {
+        String json = "[{\"title\":\"Aventuras\",\"author\":\"Artur\",\"isbn\":\"001\"}," +
+                "{\"title\":\"Sem autor\",\"isbn\":\"002\"}]";
+
+        mvc.perform(MockMvcRequestBuilders.post(IMPORT_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("received").value(2));
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).getBook().getIsbn()).isEqualTo("001");
+        assertThat(rows.get(0).getBook().getId()).isNull();
+        assertThat(rows.get(1).getRow()).isEqualTo(2);
+        assertThat(rows.get(1).getIsbn()).isEqualTo("002");
+        assertThat(rows.get(1).getError()).startsWith("author:");
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um NDJSON mantendo as linhas invalidas no relatorio")
+    public void importNdjsonTest() throws Exception {
+        String ndjson = "{\"title\":\"Aventuras\",\"author\":\"Artur\",\"isbn\":\"001\"}\n" +
+                "{nao e json}\n" +
+                "\n" +
+                "{\"title\":\"Outro\",\"author\":\"Beltrano\",\"isbn\":\"003\"}\n";
+
+        mvc.perform(MockMvcRequestBuilders.post(IMPORT_API)
+                .contentType(BookImportController.NDJSON)
+                .content(ndjson))
+                .andExpect(status().isOk());
+
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(1).getError()).startsWith("JSON inválido");
+        assertThat(rows.get(2).getBook().getIsbn()).isEqualTo("003");
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um CSV com campos entre aspas")
+    public void importCsvTest() throws Exception {
+        String csv = "isbn,title,author\n" +
+                "001,\"Aventuras, volume 1\",Artur\n" +
+                "002,\"O \"\"livro\"\"\",\n";
+
+        mvc.perform(MockMvcRequestBuilders.post(IMPORT_API)
+                .contentType(BookImportController.CSV)
+                .content(csv))
+                .andExpect(status().isOk());
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).getBook().getTitle()).isEqualTo("Aventuras, volume 1");
+        assertThat(rows.get(1).getError()).startsWith("author:");
+    }
+
+    @Test
+    @DisplayName("Deve reimportar o CSV exportado com quebras de linha dentro dos campos")
+    public void importExportedCsvTest() throws Exception {
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        try (ExportWriter writer = ExportWriter.csv(exported)) {
+            writer.header("id", "title", "author", "isbn");
+            writer.row(1L, "Aventuras\nvolume 1, \"edicao\" nova", "Artur", "001");
+            writer.row(2L, "Outro", "Beltrano\r\nda Silva", "002");
+        }
+
+        mvc.perform(MockMvcRequestBuilders.post(IMPORT_API)
+                .contentType(BookImportController.CSV)
+                .content(exported.toByteArray()))
+                .andExpect(status().isOk());
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).getBook().getTitle()).isEqualTo("Aventuras\nvolume 1, \"edicao\" nova");
+        assertThat(rows.get(0).getBook().getIsbn()).isEqualTo("001");
+        assertThat(rows.get(1).getRow()).isEqualTo(2);
+        assertThat(rows.get(1).getBook().getAuthor()).isEqualTo("Beltrano\nda Silva");
+        assertThat(rows.get(1).getBook().getIsbn()).isEqualTo("002");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar CSV sem o cabeçalho esperado")
+    public void csvWithoutHeaderTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(IMPORT_API)
+                .contentType(BookImportController.CSV)
+                .content("001,Aventuras,Artur\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("O cabeçalho do CSV deve conter title, author e isbn"));
+    }
+}
@@ -0,0 +1,121 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.ApplicationControllerAdvice;
+import com.aprendendotddspring.aprendendo.config.Beans;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.BookService;
+import com.aprendendotddspring.aprendendo.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = {
+        ExportController.class,
+        Beans.class,
+        ApplicationControllerAdvice.class
+})
+public class ExportControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @Test
+    @DisplayName("Deve exportar os livros em NDJSON quando o Accept nao pedir CSV")
+    public void exportBooksNdjsonTest() throws Exception {
+        givenBooks(Book.builder().id(1L).title("As aventuras").author("Artur").isbn("123").build(),
+                Book.builder().id(2L).title("Outro").author("Fulano").isbn("456").build());
+
+        String content = mvc.perform(MockMvcRequestBuilders.get("/api/books/export").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BookImportController.NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.ndjson\""))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(content.split("\n")).containsExactly(
+                "{\"id\":1,\"title\":\"As aventuras\",\"author\":\"Artur\",\"isbn\":\"123\"}",
+                "{\"id\":2,\"title\":\"Outro\",\"author\":\"Fulano\",\"isbn\":\"456\"}");
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em CSV com cabecalho e campos entre aspas quando preciso")
+    public void exportBooksCsvTest() throws Exception {
+        givenBooks(Book.builder().id(1L).title("Crime, castigo").author("Fiodor \"F\"").isbn("123").build());
+
+        String content = mvc.perform(MockMvcRequestBuilders.get("/api/books/export")
+                .header(HttpHeaders.ACCEPT, "application/x-ndjson;q=0.5, text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(BookImportController.CSV))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(content).isEqualTo("id,title,author,isbn\r\n1,\"Crime, castigo\",\"Fiodor \"\"F\"\"\",123\r\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar os emprestimos com a data e o livro")
+    public void exportLoansTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder().id(10L).book(book).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.of(2020, 6, 1)).returned(false).build();
+        Mockito.doAnswer(invocation -> {
+            invocation.<Consumer<Loan>>getArgument(0).accept(loan);
+            return null;
+        }).when(loanService).exportAll(any());
+
+        String content = mvc.perform(MockMvcRequestBuilders.get("/api/loans/export")
+                .accept(MediaType.parseMediaType(BookImportController.NDJSON)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(content).isEqualTo("{\"id\":10,\"customer\":\"Fulano\",\"email\":\"fulano@email.com\"," +
+                "\"loanDate\":\"2020-06-01\",\"returned\":false,\"bookId\":1,\"isbn\":\"123\"}\n");
+    }
+
+    @Test
+    @DisplayName("Deve recusar a exportacao em formato nao suportado")
+    public void exportNotAcceptableTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/export").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+
+        Mockito.verify(bookService, Mockito.never()).exportAll(any());
+    }
+
+    private void givenBooks(Book... books) {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            for (Book book : books) {
+                action.accept(book);
+            }
+            return null;
+        }).when(bookService).exportAll(any());
+    }
+}
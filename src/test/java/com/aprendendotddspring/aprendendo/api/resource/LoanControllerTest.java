@@ -5,13 +5,17 @@ import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
 
 import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
 import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoanDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.config.Beans;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.BookImportService;
 import com.aprendendotddspring.aprendendo.service.BookService;
 import com.aprendendotddspring.aprendendo.service.EmailService;
 import com.aprendendotddspring.aprendendo.service.LoanService;
+import com.aprendendotddspring.aprendendo.service.ReactiveCatalogService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -25,6 +29,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
@@ -64,6 +69,12 @@ public class LoanControllerTest {
     @MockBean
     private EmailService emailService;
 
+    @MockBean
+    private BookImportService bookImportService;
+
+    @MockBean
+    private ReactiveCatalogService reactiveCatalogService;
+
 
     @Test
     @DisplayName("Deve realizar um emprestimo")
@@ -180,6 +191,40 @@ public class LoanControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve devolver varios emprestimos e informar os ids não encontrados e os ja devolvidos")
+    public void returnBooksTest() throws Exception{
+        String json = new ObjectMapper().writeValueAsString(
+                ReturnedLoansDTO.builder().ids(Arrays.asList(1L, 2L, 3L)).build());
+        BDDMockito.given(loanService.returnLoans(Arrays.asList(1L, 2L, 3L)))
+                .willReturn(ReturnedLoansReportDTO.builder().returned(1).notFound(Arrays.asList(3L)).alreadyReturned(Arrays.asList(2L)).build());
+
+        mvc.perform(
+                patch(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json)
+        ).andExpect(status().isOk())
+                .andExpect(jsonPath("returned").value(1))
+                .andExpect(jsonPath("notFound", hasSize(1)))
+                .andExpect(jsonPath("notFound[0]").value(3))
+                .andExpect(jsonPath("alreadyReturned", hasSize(1)))
+                .andExpect(jsonPath("alreadyReturned[0]").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar devolução em massa sem ids")
+    public void returnBooksWithoutIdsTest() throws Exception{
+        mvc.perform(
+                patch(LOAN_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[]}")
+        ).andExpect(status().isBadRequest());
+
+        verify(loanService, never()).returnLoans(any());
+    }
+
     @Test
     @DisplayName("Deve perquisar emprestimos")
     public void findLoanTest() throws Exception{
@@ -214,4 +259,46 @@ public class LoanControllerTest {
 
 
     }
+
+    @Test
+    @DisplayName("Deve pesquisar emprestimos paginando por cursor")
+    public void findLoanByCursorTest() throws Exception{
+        Book book = Book.builder().id(1L).isbn("321").build();
+        Loan loan = Loan.builder().id(5L).customer("Beltrano").book(book).loanDate(LocalDate.now()).build();
+
+        BDDMockito.given( loanService.findAfter(any(LoanFilterDTO.class), isNull(), eq(10)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Beltrano&cursor=&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform( request )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(5))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar emprestimos sem o total de elementos")
+    public void findLoanSliceTest() throws Exception{
+        Book book = Book.builder().id(1L).isbn("321").build();
+        Loan loan = Loan.builder().id(5L).customer("Beltrano").book(book).loanDate(LocalDate.now()).build();
+
+        BDDMockito.given( loanService.findSlice(any(LoanFilterDTO.class), any(Pageable.class)))
+                .willReturn(new SliceImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?isbn=321&customer=Beltrano&page=0&size=10&count=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+                .perform( request )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("last").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+    }
 }
@@ -0,0 +1,102 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.actuator.SqlProfiler;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Numero maximo de statements SQL por requisicao de cada endpoint, contados
+ * pelo SqlProfiler. Cada endpoint e chamado com um e com varios emprestimos
+ * para o orcamento nao esconder um N+1.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class QueryBudgetTest {
+
+    private static final String ISBN = "budget-001";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    SqlProfiler profiler;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp(){
+        book = bookRepository.save(Book.builder().title("Orcamento").author("Fulano").isbn(ISBN).build());
+        profiler.reset();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.findByBook(book, Pageable.unpaged())
+                .forEach(loanRepository::delete);
+        bookRepository.delete(book);
+    }
+
+    @Test
+    @DisplayName("Deve buscar os emprestimos de um livro com no maximo 3 statements")
+    public void loanByBookBudgetTest() throws Exception {
+        assertBudget("BookController.loanByBook", 3,
+                MockMvcRequestBuilders.get("/api/books/" + book.getId() + "/loans"));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os emprestimos com no maximo 2 statements")
+    public void findLoansBudgetTest() throws Exception {
+        assertBudget("LoanController.find", 2,
+                MockMvcRequestBuilders.get("/api/loans").param("isbn", ISBN));
+    }
+
+    private void assertBudget(String endpoint, long budget, MockHttpServletRequestBuilder request) throws Exception {
+        loan(1);
+        mvc.perform(request).andExpect(status().isOk()).andExpect(jsonPath("content.length()").value(1));
+
+        loan(2);
+        loan(3);
+        mvc.perform(request).andExpect(status().isOk()).andExpect(jsonPath("content.length()").value(3));
+
+        SqlProfiler.Stats stats = profiler.getEndpoints().get(endpoint);
+        assertThat(stats.getCount()).isEqualTo(2);
+        assertThat(stats.getMaxStatements()).isLessThanOrEqualTo(budget);
+    }
+
+    private void loan(int customer) {
+        loanRepository.save(Loan.builder()
+                .book(book)
+                .customer("Cliente " + customer)
+                .customerEmail("cliente" + customer + "@email.com")
+                .loanDate(LocalDate.now())
+                .returned(true)
+                .build());
+    }
+}
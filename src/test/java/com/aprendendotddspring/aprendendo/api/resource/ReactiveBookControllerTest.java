@@ -0,0 +1,143 @@
+package com.aprendendotddspring.aprendendo.api.resource;
+
+import com.aprendendotddspring.aprendendo.api.ApplicationControllerAdvice;
+import com.aprendendotddspring.aprendendo.config.Beans;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.ReactiveCatalogService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest
+@AutoConfigureMockMvc
+@ContextConfiguration(classes = {
+        ReactiveBookController.class,
+        Beans.class,
+        ApplicationControllerAdvice.class
+})
+public class ReactiveBookControllerTest {
+
+    static final String REACTIVE_BOOK_API = "/api/reactive/books";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReactiveCatalogService service;
+
+    @Test
+    @DisplayName("Deve obter um livro pelo id")
+    public void getBookTest() throws Exception {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.just(createBook(1L)));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_BOOK_API + "/1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1))
+                .andExpect(jsonPath("title").value("As aventuras"))
+                .andExpect(jsonPath("isbn").value("123"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found quando o livro nao existir")
+    public void bookNotFoundTest() throws Exception {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.empty());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_BOOK_API + "/1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve enviar os livros filtrados em stream, um JSON por linha")
+    public void findBooksStreamTest() throws Exception {
+        BDDMockito.given(service.find(Mockito.any(Book.class)))
+                .willReturn(Flux.just(createBook(1L), createBook(2L)));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_BOOK_API + "?title=aventuras")
+                .accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.APPLICATION_STREAM_JSON_VALUE);
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":1");
+        assertThat(lines[1]).contains("\"id\":2");
+
+        ArgumentCaptor<Book> filter = ArgumentCaptor.forClass(Book.class);
+        Mockito.verify(service).find(filter.capture());
+        assertThat(filter.getValue().getTitle()).isEqualTo("aventuras");
+    }
+
+    @Test
+    @DisplayName("Deve enviar os emprestimos do livro em stream")
+    public void loansByBookStreamTest() throws Exception {
+        Book book = createBook(1L);
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.just(book));
+        BDDMockito.given(service.getLoansByBook(1L)).willReturn(Flux.just(
+                Loan.builder().id(10L).book(book).customer("Fulano").customerEmail("fulano@email.com")
+                        .loanDate(LocalDate.now()).build()));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_BOOK_API + "/1/loans")
+                .accept(MediaType.APPLICATION_STREAM_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult();
+
+        String content = result.getResponse().getContentAsString().trim();
+        assertThat(content.split("\n")).hasSize(1);
+        assertThat(content).contains("\"customer\":\"Fulano\"").contains("\"email\":\"fulano@email.com\"");
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao listar emprestimos de livro inexistente")
+    public void loansByMissingBookTest() throws Exception {
+        BDDMockito.given(service.getById(1L)).willReturn(Mono.empty());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(REACTIVE_BOOK_API + "/1/loans")
+                .accept(MediaType.APPLICATION_STREAM_JSON))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+        Mockito.verify(service, Mockito.never()).getLoansByBook(Mockito.anyLong());
+    }
+
+    private Book createBook(Long id) {
+        return Book.builder().id(id).title("As aventuras").author("Artur").isbn("123").build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vazao de POST /api/loans (busca do livro pelo isbn, checagem de emprestimo
+ * ativo e insert) com 32 clientes simultaneos para cada tamanho do pool de
+ * conexoes Hikari. Cada requisicao empresta um livro diferente, entao nenhuma
+ * e recusada por "Book already loaned". O tempo de espera por conexao de cada
+ * configuracao aparece em /actuator/connectionpool.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class ConnectionPoolBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"2", "5", "10", "20"})
+        int poolSize;
+
+        /** Livros disponiveis; precisa ser maior que o numero de emprestimos feitos no trial. */
+        @Param({"300000"})
+        int books;
+
+        LibraryServer server;
+        final AtomicInteger nextBook = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            server = LibraryServer.start("connectionpool",
+                    "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                    "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                    "--logging.level.root=WARN");
+            server.seedBooks(books);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    public int createLoan(ServerState state) throws IOException {
+        int book = state.nextBook.incrementAndGet();
+        return state.server.post("/api/loans", "{\"isbn\":\"isbn-" + book + "\",\"customer\":\"Cliente " + book
+                + "\",\"email\":\"cliente" + book + "@email.com\"}");
+    }
+}
@@ -0,0 +1,111 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import com.aprendendotddspring.aprendendo.AprendendoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aplicacao completa num Tomcat em porta aleatoria, sobre um H2 em memoria
+ * proprio e sem SMTP nem Spring Boot Admin, para os benchmarks que medem
+ * requisicoes HTTP. Os argumentos de cada benchmark valem sobre o
+ * application.properties.
+ */
+class LibraryServer implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final JdbcTemplate jdbcTemplate;
+
+    private LibraryServer(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    static LibraryServer start(String database, String... args) {
+        return start(database, new Class<?>[0], args);
+    }
+
+    /** Sobe a aplicacao com componentes extras do benchmark, como filtros. */
+    static LibraryServer start(String database, Class<?>[] components, String... args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=64",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=1",
+                "--spring.boot.admin.client.enabled=false",
+                "--spring.main.banner-mode=off"));
+        arguments.addAll(Arrays.asList(args));
+
+        List<Class<?>> sources = new ArrayList<>();
+        sources.add(AprendendoApplication.class);
+        sources.addAll(Arrays.asList(components));
+        return new LibraryServer(new SpringApplicationBuilder(sources.toArray(new Class<?>[0]))
+                .run(arguments.toArray(new String[0])));
+    }
+
+    /** Livros de id 1 a {@code books}, com isbn "isbn-{id}" e cem autores diferentes. */
+    void seedBooks(int books) {
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (books + 1));
+        jdbcTemplate.update("insert into book (id, title, author, isbn) " +
+                "select x, 'Titulo ' || x, 'Autor ' || mod(x, 100), 'isbn-' || x from system_range(1, " + books + ")");
+        jdbcTemplate.execute("analyze");
+    }
+
+    /** Um emprestimo devolvido por livro, de 1 a {@code loans}, distribuidos entre {@code customers} clientes. */
+    void seedLoans(int loans, int customers) {
+        jdbcTemplate.execute("alter table loan alter column id restart with " + (loans + 1));
+        jdbcTemplate.update("insert into loan (id, customer, id_book, loan_date, returned) " +
+                "select x, 'Cliente ' || mod(x, " + customers + "), x, current_date, true from system_range(1, " + loans + ")");
+        jdbcTemplate.execute("analyze");
+    }
+
+    int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        return exchange(connection, 200);
+    }
+
+    int post(String path, String json) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setDoOutput(true);
+        try (OutputStream body = connection.getOutputStream()) {
+            body.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return exchange(connection, 201);
+    }
+
+    private int exchange(HttpURLConnection connection, int expected) throws IOException {
+        int status = connection.getResponseCode();
+        // le o corpo inteiro para a conexao voltar ao pool de keep-alive
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            while (body != null && body.read(buffer) != -1) {
+                // descarta
+            }
+        }
+        if (status != expected) {
+            throw new IllegalStateException(connection.getRequestMethod() + " " + connection.getURL().getPath()
+                    + " returned " + status);
+        }
+        return status;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
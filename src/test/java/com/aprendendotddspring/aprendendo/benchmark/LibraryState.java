@@ -0,0 +1,160 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
+import com.aprendendotddspring.aprendendo.api.resource.BookController;
+import com.aprendendotddspring.aprendendo.api.resource.LoanController;
+import com.aprendendotddspring.aprendendo.config.DataSourceConfig;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
+import com.aprendendotddspring.aprendendo.service.BookImportService;
+import com.aprendendotddspring.aprendendo.service.BookSearchIndex;
+import com.aprendendotddspring.aprendendo.service.BookService;
+import com.aprendendotddspring.aprendendo.service.IsbnIndex;
+import com.aprendendotddspring.aprendendo.service.LoanService;
+import com.aprendendotddspring.aprendendo.service.impl.BookImportServiceImpl;
+import com.aprendendotddspring.aprendendo.service.impl.BookServiceImpl;
+import com.aprendendotddspring.aprendendo.service.impl.LoanServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Contexto Spring sem camada web sobre um H2 em memoria, populado com
+ * {@code books} livros e um emprestimo por livro. Um quarto dos emprestimos
+ * esta atrasado, um quarto em aberto e o resto ja devolvido.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    @Param({"10000"})
+    int books;
+
+    ConfigurableApplicationContext context;
+
+    BookService bookService;
+    BookImportService bookImportService;
+    LoanService loanService;
+    BookController bookController;
+    LoanController loanController;
+
+    Book loanedBook;
+    Book returnedBook;
+
+    /** Emprestimos em aberto no seed, reabertos pelos benchmarks de devolucao. */
+    List<Long> openLoanIds;
+
+    JdbcTemplate jdbcTemplate;
+
+    /** Sufixo dos isbns gerados pelos benchmarks de cadastro, para nunca repetir. */
+    final AtomicLong isbnSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(BenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run();
+
+        bookService = context.getBean(BookService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        bookImportService = context.getBean(BookImportService.class);
+        loanService = context.getBean(LoanService.class);
+        bookController = context.getBean(BookController.class);
+        loanController = context.getBean(LoanController.class);
+
+        seed(context.getBean(BookRepository.class), context.getBean(LoanRepostory.class));
+        context.getBean(BookSearchIndex.class).reconcile();
+    }
+
+    private void seed(BookRepository bookRepository, LoanRepostory loanRepository){
+        List<Book> bookList = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            bookList.add(Book.builder()
+                    .title("Titulo " + i)
+                    .author("Autor " + (i % 100))
+                    .isbn("isbn-" + i)
+                    .build());
+        }
+        bookList = bookRepository.saveAll(bookList);
+
+        List<Loan> loanList = new ArrayList<>(books);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < bookList.size(); i++) {
+            boolean late = i % 4 == 0;
+            boolean open = i % 4 == 1;
+            loanList.add(Loan.builder()
+                    .book(bookList.get(i))
+                    .customer("Cliente " + (i % 500))
+                    .customerEmail("cliente" + (i % 500) + "@email.com")
+                    .loanDate(late ? today.minusDays(10) : today)
+                    .returned(late || open ? null : Boolean.TRUE)
+                    .build());
+        }
+        loanList = loanRepository.saveAll(loanList);
+        openLoanIds = new ArrayList<>();
+        for (int i = 1; i < loanList.size(); i += 4) {
+            openLoanIds.add(loanList.get(i).getId());
+        }
+
+        loanedBook = bookList.get(1);
+        returnedBook = bookList.get(2);
+    }
+
+    /** Reabre os primeiros {@code count} emprestimos em aberto do seed e devolve seus ids. */
+    List<Long> reopenLoans(int count){
+        List<Long> ids = openLoanIds.subList(0, Math.min(count, openLoanIds.size()));
+        String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        jdbcTemplate.update("update loan set returned = false, active_book_id = id_book where id in (" + in + ")");
+        return ids;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Configuration
+    @Profile("benchmark")
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Book.class)
+    @EnableJpaRepositories(basePackageClasses = BookRepository.class)
+    @Import({
+            DataSourceConfig.class,
+            IsbnIndex.class,
+            BookSearchIndex.class,
+            BookServiceImpl.class,
+            BookImportServiceImpl.class,
+            LoanServiceImpl.class,
+            BookController.class,
+            LoanController.class
+    })
+    static class BenchmarkConfiguration {
+
+        @Bean
+        public DtoMapper dtoMapper(){
+            return new DtoMapper();
+        }
+    }
+}
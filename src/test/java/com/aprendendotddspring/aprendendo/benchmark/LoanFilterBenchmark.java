@@ -0,0 +1,123 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o filtro de emprestimos por isbn ou cliente feito com OR entre as
+ * colunas (consulta antiga do LoanRepostory) com o filtro dinamico que une
+ * os ids de cada indice, sobre uma base de um milhao de emprestimos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LoanFilterBenchmark {
+
+    static final String OR_QUERY = "select l from Loan as l join fetch l.book as b " +
+            "where b.isbn = :isbn or l.customer = :customer";
+    static final String OR_COUNT = "select count(l.id) from Loan as l join l.book as b " +
+            "where b.isbn = :isbn or l.customer = :customer";
+
+    static final PageRequest PAGE = PageRequest.of(0, 20);
+
+    @State(Scope.Benchmark)
+    public static class MillionLoansState {
+
+        @Param({"1000000"})
+        int loans;
+
+        ConfigurableApplicationContext context;
+        LoanRepostory loanRepository;
+        EntityManager entityManager;
+
+        /** Cliente e isbn mudam a cada chamada. */
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LibraryState.BenchmarkConfiguration.class)
+                    .web(WebApplicationType.NONE)
+                    .profiles("benchmark")
+                    .properties(
+                            // sem reaproveitar o resultado da ultima execucao de uma consulta igual
+                            "spring.datasource.url=jdbc:h2:mem:loanfilter;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;OPTIMIZE_REUSE_RESULTS=0",
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN")
+                    .run();
+            loanRepository = context.getBean(LoanRepostory.class);
+            entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+
+            // seed direto em SQL: um livro por emprestimo e dez emprestimos por cliente. Os ids dos
+            // emprestimos sao explicitos e ficam abaixo da identity; senao o H2 faz commit a cada linha
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("alter table loan alter column id restart with " + (loans + 1));
+            jdbcTemplate.update("insert into book (id, title, author, isbn) " +
+                    "select x, 'Titulo ' || x, 'Autor ' || mod(x, 100), 'isbn-' || x from system_range(1, " + loans + ")");
+            jdbcTemplate.update("insert into loan (id, customer, id_book, loan_date, returned) " +
+                    "select x, 'Cliente ' || mod(x, " + loans / 10 + "), x, current_date, true from system_range(1, " + loans + ")");
+            jdbcTemplate.execute("analyze");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        String nextIsbn() {
+            return "isbn-" + (next++ % loans + 1);
+        }
+
+        String nextCustomer() {
+            return "Cliente " + (next++ % (loans / 10));
+        }
+
+        Page<Loan> orQuery(String isbn, String customer) {
+            List<Loan> content = entityManager.createQuery(OR_QUERY, Loan.class)
+                    .setParameter("isbn", isbn)
+                    .setParameter("customer", customer)
+                    .setMaxResults(PAGE.getPageSize())
+                    .getResultList();
+            Long total = entityManager.createQuery(OR_COUNT, Long.class)
+                    .setParameter("isbn", isbn)
+                    .setParameter("customer", customer)
+                    .getSingleResult();
+            return new PageImpl<>(content, PAGE, total);
+        }
+    }
+
+    @Benchmark
+    public Page<Loan> orQueryByIsbnAndCustomer(MillionLoansState state) {
+        return state.orQuery(state.nextIsbn(), state.nextCustomer());
+    }
+
+    @Benchmark
+    public Page<Loan> filterByIsbnAndCustomer(MillionLoansState state) {
+        return state.loanRepository.findByIsbnOrCustomer(state.nextIsbn(), state.nextCustomer(), PAGE);
+    }
+
+    @Benchmark
+    public Page<Loan> orQueryByCustomer(MillionLoansState state) {
+        return state.orQuery(null, state.nextCustomer());
+    }
+
+    @Benchmark
+    public Page<Loan> filterByCustomer(MillionLoansState state) {
+        return state.loanRepository.findByIsbnOrCustomer(null, state.nextCustomer(), PAGE);
+    }
+}
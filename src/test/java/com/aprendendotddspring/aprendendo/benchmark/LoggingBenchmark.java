@@ -0,0 +1,91 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de GET /api/books/{id}, que loga "get book of id" a cada chamada,
+ * com o log da aplicacao desligado (off), com o console e o arquivo sincronos
+ * padrao do Spring Boot, como era antes do logback-spring.xml (sync),
+ * com os appenders assincronos e arquivo em JSON (async) e com eles mais a
+ * amostragem do BookController (sampled). O console e descartado para nao
+ * inundar a saida do JMH, mas continua sendo formatado e escrito.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class LoggingBenchmark {
+
+    private static final String LOG_FILE = "target/benchmark-logging.log";
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"off", "sync", "async", "sampled"})
+        String logging;
+
+        @Param({"10000"})
+        int books;
+
+        LibraryServer server;
+        PrintStream stdout;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            Files.deleteIfExists(Paths.get(LOG_FILE));
+            stdout = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+
+            List<String> args = new ArrayList<>();
+            args.add("--logging.file.name=" + LOG_FILE);
+            switch (logging) {
+                case "off":
+                    args.add("--logging.level.com.aprendendotddspring=WARN");
+                    break;
+                case "sync":
+                    args.add("--logging.config=classpath:logback-benchmark-sync.xml");
+                    break;
+                case "async":
+                    args.add("--application.logging.sampling.rate=1");
+                    break;
+                default:
+                    // sampled: amostragem do application.properties
+                    break;
+            }
+            server = LibraryServer.start("logging", args.toArray(new String[0]));
+            server.seedBooks(books);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+            System.setOut(stdout);
+        }
+    }
+
+    @Benchmark
+    public int bookById(ServerState state) throws IOException {
+        int id = ThreadLocalRandom.current().nextInt(state.books) + 1;
+        return state.server.get("/api/books/" + id);
+    }
+}
@@ -0,0 +1,88 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compara o mapeamento de uma pagina de livros e emprestimos feito pelo
+ * ModelMapper (caminho antigo dos controllers) com o DtoMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    List<Book> books;
+    List<Loan> loans;
+
+    ModelMapper modelMapper;
+    DtoMapper dtoMapper;
+
+    @Setup
+    public void setUp(){
+        modelMapper = new ModelMapper();
+        dtoMapper = new DtoMapper();
+        books = new ArrayList<>();
+        loans = new ArrayList<>();
+        for (long i = 0; i < pageSize; i++) {
+            Book book = Book.builder().id(i).title("Titulo " + i).author("Autor " + i).isbn("isbn-" + i).build();
+            books.add(book);
+            loans.add(Loan.builder()
+                    .id(i)
+                    .book(book)
+                    .customer("Fulano " + i)
+                    .customerEmail("fulano" + i + "@email.com")
+                    .loanDate(LocalDate.now())
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<BooktDTO> booksWithModelMapper(){
+        return books.stream()
+                .map(book -> modelMapper.map(book, BooktDTO.class))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BooktDTO> booksWithDtoMapper(){
+        return books.stream()
+                .map(dtoMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loansWithModelMapper(){
+        return loans.stream()
+                .map(loan -> {
+                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+                    loanDTO.setBook(modelMapper.map(loan.getBook(), BooktDTO.class));
+                    return loanDTO;
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loansWithDtoMapper(){
+        return loans.stream()
+                .map(dtoMapper::toDto)
+                .collect(Collectors.toList());
+    }
+}
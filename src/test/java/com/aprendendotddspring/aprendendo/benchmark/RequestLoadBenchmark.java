@@ -0,0 +1,104 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga HTTP de leitura (GET /api/loans filtrando por cliente e GET /api/books/{id})
+ * com mais clientes simultaneos do que threads no pool do Tomcat, comparando
+ * o pool de platform threads com application.threads.virtual. Mede vazao e a
+ * distribuicao de latencia (p99, p99.9) de cada modo. Com blockingMillis > 0
+ * cada requisicao tambem fica parada esse tempo, como numa chamada a um banco
+ * ou servico remoto; com o H2 em memoria a carga so ocupa CPU, e ai os dois
+ * modos empatam.
+ *
+ * O modo virtual exige Java 21 nos forks:
+ * -Djmh.args="RequestLoadBenchmark -jvm /caminho/do/jdk-21/bin/java"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dhttp.maxConnections=512"})
+public class RequestLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"false", "true"})
+        boolean virtualThreads;
+
+        /** Pool de platform threads do Tomcat, ignorado no modo virtual. */
+        @Param({"50"})
+        int tomcatThreads;
+
+        /** Espera bloqueante simulada por requisicao, em ms. */
+        @Param({"0", "200"})
+        int blockingMillis;
+
+        @Param({"100000"})
+        int loans;
+
+        LibraryServer server;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            server = LibraryServer.start("requestload", new Class<?>[]{BlockingFilter.class},
+                    "--benchmark.blocking-millis=" + blockingMillis,
+                    "--server.tomcat.threads.max=" + tomcatThreads,
+                    "--application.threads.virtual=" + virtualThreads,
+                    "--logging.level.root=WARN");
+            // um livro por emprestimo e dez emprestimos por cliente, como no LoanFilterBenchmark
+            server.seedBooks(loans);
+            server.seedLoans(loans, loans / 10);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            server.close();
+        }
+    }
+
+    /** Segura a thread da requisicao como uma chamada de IO bloqueante. */
+    static class BlockingFilter extends OncePerRequestFilter {
+
+        @Value("${benchmark.blocking-millis}")
+        long blockingMillis;
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain chain) throws ServletException, IOException {
+            if (blockingMillis > 0) {
+                try {
+                    Thread.sleep(blockingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Benchmark
+    public int loansByCustomer(ServerState state) throws IOException {
+        int customer = ThreadLocalRandom.current().nextInt(state.loans / 10);
+        return state.server.get("/api/loans?customer=Cliente%20" + customer + "&page=0&size=10");
+    }
+
+    @Benchmark
+    public int bookById(ServerState state) throws IOException {
+        int id = ThreadLocalRandom.current().nextInt(state.loans) + 1;
+        return state.server.get("/api/books/" + id);
+    }
+}
@@ -0,0 +1,172 @@
+package com.aprendendotddspring.aprendendo.benchmark;
+
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+import com.aprendendotddspring.aprendendo.api.dto.BooktDTO;
+import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.BookImportRow;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos quentes dos servicos e controllers contra o H2 populado pelo
+ * {@link LibraryState}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    static final PageRequest PAGE = PageRequest.of(0, 50);
+
+    static final int IMPORT_ROWS = 1000;
+
+    static final int RETURN_BATCH = 200;
+
+    /** Emprestimos reabertos antes de cada invocacao dos benchmarks de devolucao. */
+    @State(Scope.Thread)
+    public static class ReturnState {
+
+        List<Long> ids;
+
+        @Setup(Level.Invocation)
+        public void reopen(LibraryState state){
+            ids = state.reopenLoans(RETURN_BATCH);
+        }
+    }
+
+    @Benchmark
+    public Page<Book> findBooksByExample(LibraryState state){
+        Book filter = Book.builder().title("titulo 99").build();
+        return state.bookService.find(filter, PAGE);
+    }
+
+    @Benchmark
+    public Loan saveLoanForReturnedBook(LibraryState state){
+        // ja devolvido para que o livro continue disponivel na proxima invocacao
+        Loan loan = Loan.builder()
+                .book(state.returnedBook)
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .returned(true)
+                .build();
+        return state.loanService.save(loan);
+    }
+
+    @Benchmark
+    public Object saveLoanForLoanedBook(LibraryState state){
+        Loan loan = Loan.builder()
+                .book(state.loanedBook)
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build();
+        try {
+            return state.loanService.save(loan);
+        } catch (BusinessException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORT_ROWS)
+    public int saveBooksOneByOne(LibraryState state){
+        int saved = 0;
+        for (BookImportRow row : newBooks(state)) {
+            state.bookService.save(row.getBook());
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORT_ROWS)
+    public BookImportReportDTO importBooksInBatch(LibraryState state){
+        return state.bookImportService.importBooks(newBooks(state).iterator());
+    }
+
+    private List<BookImportRow> newBooks(LibraryState state){
+        List<BookImportRow> rows = new ArrayList<>(IMPORT_ROWS);
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            long n = state.isbnSequence.incrementAndGet();
+            rows.add(BookImportRow.valid(i + 1, Book.builder()
+                    .title("Importado " + n)
+                    .author("Autor " + (n % 100))
+                    .isbn("import-" + n)
+                    .build()));
+        }
+        return rows;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RETURN_BATCH)
+    public int returnLoansOneByOne(LibraryState state, ReturnState loans){
+        // mesmo caminho do PATCH /api/loans/{id}: uma leitura e uma escrita por emprestimo
+        for (Long id : loans.ids) {
+            Loan loan = state.loanService.getById(id).get();
+            loan.setReturned(true);
+            state.loanService.update(loan);
+        }
+        return loans.ids.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RETURN_BATCH)
+    public ReturnedLoansReportDTO returnLoansInBulk(LibraryState state, ReturnState loans){
+        return state.loanService.returnLoans(loans.ids);
+    }
+
+    @Benchmark
+    public int getLateLoansInChunks(LibraryState state){
+        int count = 0;
+        Long cursor = null;
+        Slice<Loan> chunk;
+        do {
+            chunk = state.loanService.getLateLoans(cursor, 500);
+            count += chunk.getNumberOfElements();
+            if (chunk.hasContent()) {
+                cursor = chunk.getContent().get(chunk.getNumberOfElements() - 1).getId();
+            }
+        } while (chunk.hasNext());
+        return count;
+    }
+
+    @Benchmark
+    public Page<Book> searchBooks(LibraryState state){
+        return state.bookService.search("titulo 99", PAGE);
+    }
+
+    @Benchmark
+    public Page<Book> findBooksDeepOffsetPage(LibraryState state){
+        return state.bookService.find(new Book(), PageRequest.of(state.books / 50 - 1, 50));
+    }
+
+    @Benchmark
+    public Slice<Book> findBooksDeepKeysetPage(LibraryState state){
+        return state.bookService.findAfter(new Book(), (long) state.books - 50, 50);
+    }
+
+    @Benchmark
+    public Page<BooktDTO> bookControllerFind(LibraryState state){
+        return state.bookController.find(BooktDTO.builder().author("autor 7").build(), PAGE,
+                new ServletWebRequest(new MockHttpServletRequest()));
+    }
+
+    @Benchmark
+    public Page<LoanDTO> loanControllerFind(LibraryState state){
+        return state.loanController.find(LoanDTO.builder().customer("Cliente 7").build(), PAGE);
+    }
+}
@@ -0,0 +1,66 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogSamplingFilterTest {
+
+    LoggerContext context;
+
+    ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    public void setUp(){
+        context = new LoggerContext();
+        LogSamplingFilter filter = new LogSamplingFilter();
+        filter.setLoggers("api.resource.BookController, api.resource.LoanController");
+        filter.setRate(10);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+    }
+
+    @Test
+    @DisplayName("Deve gravar um a cada rate eventos INFO dos loggers amostrados")
+    public void sampleInfoEventsTest(){
+        Logger sampled = context.getLogger("api.resource.BookController");
+        Logger other = context.getLogger("api.resource.BookControllerAdvice");
+
+        for (int i = 0; i < 100; i++) {
+            sampled.info("get book of id: {}", i);
+            other.info("outro {}", i);
+        }
+
+        assertThat(appender.list).filteredOn(event -> event.getLoggerName().equals(sampled.getName())).hasSize(10);
+        assertThat(appender.list).filteredOn(event -> event.getLoggerName().equals(other.getName())).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Deve gravar sempre WARN e ERROR e nao contar eventos abaixo do nivel do logger")
+    public void keepWarningsTest(){
+        Logger sampled = context.getLogger("api.resource.LoanController");
+
+        for (int i = 0; i < 20; i++) {
+            sampled.debug("desligado {}", i);
+            sampled.warn("aviso {}", i);
+        }
+        sampled.info("primeiro info");
+
+        assertThat(appender.list).filteredOn(event -> event.getLevel() == Level.WARN).hasSize(20);
+        assertThat(appender.list).filteredOn(event -> event.getLevel() == Level.INFO).hasSize(1);
+    }
+}
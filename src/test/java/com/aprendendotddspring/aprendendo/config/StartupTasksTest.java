@@ -0,0 +1,41 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import com.aprendendotddspring.aprendendo.actuator.StartupTimings;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class StartupTasksTest {
+
+    EmailService emailService = Mockito.mock(EmailService.class);
+
+    StartupTimings timings = new StartupTimings();
+
+    StartupTasks startupTasks = new StartupTasks(emailService, timings);
+
+    @Test
+    @DisplayName("Deve enviar o email de startup quando a aplicacao aceitar trafego")
+    public void acceptingTrafficTest(){
+        startupTasks.onReadiness(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        verify(emailService).sendMails(anyString(), anyList());
+        assertThat(timings.getTasks()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Não deve enviar email enquanto a aplicacao recusa trafego")
+    public void refusingTrafficTest(){
+        startupTasks.onReadiness(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+
+        verify(emailService, never()).sendMails(anyString(), anyList());
+    }
+}
@@ -0,0 +1,39 @@
+package com.aprendendotddspring.aprendendo.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Deve rodar as tarefas em virtual threads nomeadas quando o Java suportar")
+    public void virtualThreadsTest() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+        VirtualThreads.executor("teste-vt-").execute(() -> thread.complete(Thread.currentThread()));
+
+        Thread current = thread.get(5, TimeUnit.SECONDS);
+        assertThat(current.getName()).isEqualTo("teste-vt-1");
+        assertThat(Thread.class.getMethod("isVirtual").invoke(current)).isEqualTo(true);
+    }
+
+    @Test
+    @DisplayName("Deve falhar ao pedir virtual threads num Java sem suporte")
+    public void unsupportedJavaTest() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        Throwable exception = catchThrowable(() -> VirtualThreads.factory("teste-vt-"));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+}
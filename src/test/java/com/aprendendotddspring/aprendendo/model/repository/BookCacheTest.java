@@ -0,0 +1,155 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.actuator.BookCacheMetrics;
+import com.aprendendotddspring.aprendendo.config.LibraryCacheRegionFactory;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem a transacao do teste: o Hibernate nao coloca no cache linhas inseridas
+ * na mesma transacao, entao cada chamada ao repositorio faz commit.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookCacheTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BookRepository repository;
+
+    @MockBean
+    EmailService emailService;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp(){
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro pelo id do cache sem consultar a base")
+    public void findByIdFromCacheTest(){
+        Book book = repository.save(createNewBook("123"));
+
+        repository.findById(book.getId());
+        statistics.clear();
+        Optional<Book> cached = repository.findById(book.getId());
+
+        assertThat(cached).contains(book);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro pelo isbn do cache de consulta sem consultar a base")
+    public void findByIsbnFromCacheTest(){
+        Book book = repository.save(createNewBook("123"));
+
+        repository.findByIsbn("123");
+        statistics.clear();
+        Optional<Book> cached = repository.findByIsbn("123");
+
+        assertThat(cached).contains(book);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryRegionStatistics(BookRepository.ISBN_CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar os caches quando o livro for alterado")
+    public void invalidateOnUpdateTest(){
+        Book book = repository.save(createNewBook("123"));
+        repository.findById(book.getId());
+        repository.findByIsbn("123");
+
+        book.setIsbn("456");
+        Book updated = repository.save(book);
+
+        assertThat(repository.findByIsbn("123")).isEmpty();
+        assertThat(repository.findByIsbn("456")).contains(updated);
+        assertThat(repository.findById(book.getId()).map(Book::getIsbn)).contains("456");
+    }
+
+    @Test
+    @DisplayName("Deve publicar a taxa de acerto das regioes de livros sem as estatisticas do Hibernate")
+    public void hitRatioMetricsTest(){
+        Book book = repository.save(createNewBook("123"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new BookCacheMetrics(entityManagerFactory).bindTo(registry);
+        // o insert ja coloca o livro no cache; sem ele o primeiro findById e um miss
+        entityManagerFactory.getCache().evict(Book.class);
+        regionFactory().getRegionStatistics(Book.CACHE_REGION).clear();
+        statistics.setStatisticsEnabled(false);
+
+        try {
+            repository.findById(book.getId());
+            repository.findById(book.getId());
+            repository.findById(book.getId());
+            repository.findById(book.getId());
+        } finally {
+            statistics.setStatisticsEnabled(true);
+        }
+
+        assertThat(registry.get("library.book.cache.hit.ratio").tag("region", Book.CACHE_REGION).gauge().value())
+                .isEqualTo(0.75);
+    }
+
+    @Test
+    @DisplayName("Deve contar como miss o resultado do cache de consulta descartado por alteracao na tabela")
+    public void staleQueryHitRatioMetricsTest(){
+        repository.save(createNewBook("123"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new BookCacheMetrics(entityManagerFactory).bindTo(registry);
+        regionFactory().getRegionStatistics(BookRepository.ISBN_CACHE_REGION).clear();
+
+        repository.findByIsbn("123");
+        repository.findByIsbn("123");
+        repository.save(createNewBook("456"));
+        repository.findByIsbn("123");
+
+        assertThat(registry.get("library.book.cache.hit.ratio").tag("region", BookRepository.ISBN_CACHE_REGION).gauge().value())
+                .isEqualTo(1.0 / 3);
+    }
+
+    private LibraryCacheRegionFactory regionFactory(){
+        return (LibraryCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory();
+    }
+
+    private Book createNewBook(String isbn){
+        return Book.builder().title("As aventuras").author("Fulano").isbn(isbn).build();
+    }
+}
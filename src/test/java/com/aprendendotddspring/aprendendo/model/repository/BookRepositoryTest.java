@@ -3,6 +3,8 @@ package com.aprendendotddspring.aprendendo.model.repository;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.service.EmailService;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,16 +12,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class BookRepositoryTest {
 
     @Autowired
@@ -32,23 +43,6 @@ public class BookRepositoryTest {
     EmailService emailService;
 
 
-    @Test
-    @DisplayName("Dve retornar verdadeiro quando existir " +
-            "um livro na base com o isbn")
-    public void returnTrueWhenIsbnExists(){
-
-        //cenario
-        String isbn = "123";
-        Book book = createNewBook(isbn);
-        entityManager.persist(book);
-
-        //execução
-        boolean exists = repository.existsByIsbn(isbn);
-
-        //verificação
-        assertThat(exists).isTrue();
-    }
-
     private Book createNewBook(String isbn) {
         return Book
                 .builder()
@@ -58,20 +52,6 @@ public class BookRepositoryTest {
                 .build();
     }
 
-    @Test
-    @DisplayName("Deve retornar falso se o livro não existir" +
-            " na base de dados com o isbn informado")
-    public void returnFalseWhenIsbnDoesntExists(){
-        //cenario
-        String isbn = "123";
-
-        //Execução
-        boolean exist = repository.existsByIsbn(isbn);
-
-        //verificacao
-        assertThat(exist).isFalse();
-    }
-
     @Test
     @DisplayName("Deve obeter um livro por id")
     public void shouldBeReturnBookById(){
@@ -118,4 +98,93 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
 
     }
+
+    @Test
+    @DisplayName("Deve paginar livros pelo id sem count")
+    public void findAllAfterTest(){
+        Book first = entityManager.persist(createNewBook("1"));
+        Book second = entityManager.persist(createNewBook("2"));
+        Book third = entityManager.persist(createNewBook("3"));
+        Example<Book> example = Example.of(Book.builder().author("beltrano").build());
+
+        Slice<Book> firstPage = repository.findAllAfter(example, null, 2);
+        Slice<Book> lastPage = repository.findAllAfter(example, second.getId(), 2);
+
+        assertThat(firstPage.getContent()).containsExactly(first, second);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(lastPage.getContent()).containsExactly(third);
+        assertThat(lastPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros por pagina sem count")
+    public void findAllSlicedTest(){
+        entityManager.persist(createNewBook("1"));
+        Book second = entityManager.persist(createNewBook("2"));
+        Example<Book> example = Example.of(Book.builder().author("beltrano").build());
+
+        Slice<Book> result = repository.findAllSliced(example, PageRequest.of(1, 1, Sort.by("id")));
+
+        assertThat(result.getContent()).containsExactly(second);
+        assertThat(result.getNumber()).isEqualTo(1);
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar isbn duplicado pela constraint unica")
+    public void uniqueIsbnConstraintTest(){
+        repository.saveAndFlush(createNewBook("123"));
+
+        Throwable exception = Assertions.catchThrowable(() -> repository.saveAndFlush(createNewBook("123")));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve incrementar a versao e a data de alteracao ao alterar o livro")
+    public void versionOnUpdateTest(){
+        Book book = repository.saveAndFlush(createNewBook("123"));
+        Long version = book.getVersion();
+        Instant created = book.getLastModified();
+
+        book.setTitle("Outro titulo");
+        Book updated = repository.saveAndFlush(book);
+
+        assertThat(version).isEqualTo(0);
+        assertThat(created).isNotNull();
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getLastModified()).isAfterOrEqualTo(created);
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas os isbns já cadastrados")
+    public void findExistingIsbnsTest(){
+        entityManager.persist(createNewBook("1"));
+        entityManager.persist(createNewBook("2"));
+
+        List<String> existing = repository.findExistingIsbns(Arrays.asList("1", "2", "3"));
+
+        assertThat(existing).containsExactlyInAnyOrder("1", "2");
+    }
+
+    @Test
+    @DisplayName("Deve inserir livros em lotes JDBC")
+    public void batchInsertTest(){
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(createNewBook("isbn-" + i));
+        }
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+
+        repository.saveAll(books);
+        entityManager.flush();
+
+        //2 lotes de insert + as chamadas da sequence (50 ids por chamada), longe de 200 inserts
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(200);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
 }
@@ -1,8 +1,12 @@
 package com.aprendendotddspring.aprendendo.model.repository;
 
+import com.aprendendotddspring.aprendendo.api.mapper.DtoMapper;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
 import com.aprendendotddspring.aprendendo.service.EmailService;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,19 +14,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class LoanRepositoryTest {
 
     @Autowired
@@ -34,34 +43,40 @@ public class LoanRepositoryTest {
     @MockBean
     EmailService emailService;
 
+    DtoMapper mapper = new DtoMapper();
+
     @Test
-    @DisplayName("deve verificar se existe emprestimo não devolvido para o livro")
-    public void existsbyBookAndNotReturnedTest(){
+    @DisplayName("Deve rejeitar um segundo emprestimo aberto para o mesmo livro")
+    public void activeLoanConstraintTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
 
-        Book book = createNewBook("123");
-        entityManager.persist(book);
+        Throwable exception = Assertions.catchThrowable(() -> repository.saveAndFlush(
+                Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build()));
 
-        Loan loan = Loan.builder()
-                .book(book)
-                .customer("Fuçano")
-                .loanDate(LocalDate.now())
-                .build();
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
 
-        entityManager.persist(loan);
+    @Test
+    @DisplayName("Deve liberar o livro para novo emprestimo apos a devolucao")
+    public void returnedLoanReleasesBookTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        loan.setReturned(true);
+        repository.saveAndFlush(loan);
 
-        //execução
-        boolean exists = repository.existsByBookAndNotReturned(book);
+        Loan newLoan = repository.saveAndFlush(
+                Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build());
 
-        //verificação
-        assertThat(exists).isTrue();
+        assertThat(loan.getActiveBookId()).isNull();
+        assertThat(newLoan.getActiveBookId()).isEqualTo(loan.getBook().getId());
     }
 
     @Test
     @DisplayName("deve obter um emprestimo pelo isbn do livro ou pelo customer")
-    public void findByBookIsbnOrCustumerTest(){
+    public void findByIsbnOrCustomerTest(){
         Loan loanAndBook = createAndPersistLoan(LocalDate.now());
 
-        Page<Loan> result = repository.findByBookIsbnOrCustumer("123", "Fulano", PageRequest.of(0, 10));
+        Page<Loan> result = repository.findByIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent()).contains(loanAndBook);
@@ -71,35 +86,44 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Deve obter emprestimo cuja data emprestimo for maior ou igual" +
-            "a tres dias atras e não returnar")
-    public void findBtLoanDateLessAndNotReturnedTest(){
-        Loan loan = createAndPersistLoan(LocalDate.now().minusDays(5));
-
-        List<Loan> result = repository.findByLoansDatesLessThanAndNotReturned(LocalDate.now().minusDays(4));
-
-        assertThat(result).hasSize(1).contains(loan);
-
-
+    @DisplayName("Deve filtrar apenas pelos parametros informados")
+    public void findByIsbnOrCustomerIgnoresMissingFiltersTest(){
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Loan second = createAndPersistLoan(LocalDate.now());
+        second.setCustomer("Ciclano");
+        entityManager.flush();
+
+        assertThat(repository.findByIsbnOrCustomer(null, null, PageRequest.of(0, 10)).getContent())
+                .containsExactly(first, second);
+        assertThat(repository.findByIsbnOrCustomer(null, "Ciclano", PageRequest.of(0, 10)).getContent())
+                .containsExactly(second);
+        assertThat(repository.findByIsbnOrCustomer("123", "", PageRequest.of(0, 10)).getContent())
+                .containsExactly(first);
+        assertThat(repository.findByIsbnOrCustomer(second.getBook().getIsbn(), "Fulano", PageRequest.of(0, 10)).getTotalElements())
+                .isEqualTo(2);
     }
 
     @Test
-    @DisplayName("Deve obter emprestimo cuja data emprestimo for maior ou igual" +
-            "a tres dias atras e não returnar")
-    public void notfindBytLoanDateLessAndNotReturnedTest(){
-        Loan loan = createAndPersistLoan(LocalDate.now());
-
-        List<Loan> result = repository.findByLoansDatesLessThanAndNotReturned(LocalDate.now().minusDays(4));
-
-        assertThat(result).isEmpty();
-
-
+    @DisplayName("Deve ordenar o filtro pelas propriedades do emprestimo")
+    public void findByIsbnOrCustomerSortTest(){
+        Loan first = createAndPersistLoan(LocalDate.now().minusDays(1));
+        Loan second = createAndPersistLoan(LocalDate.now());
+
+        Slice<Loan> result = repository.findSliceByIsbnOrCustomer(null, "Fulano",
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "loanDate")));
+        Throwable exception = Assertions.catchThrowable(() -> repository.findByIsbnOrCustomer(null, "Fulano",
+                PageRequest.of(0, 1, Sort.by("book.title"))));
+
+        assertThat(result.getContent()).containsExactly(second);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(exception).isInstanceOf(InvalidDataAccessApiUsageException.class);
     }
 
+    int books;
 
     public Loan createAndPersistLoan(LocalDate localDate){
-        Book book = createNewBook("123");
-        entityManager.persist(book);
+        // isbn e emprestimo aberto sao unicos por livro: cada emprestimo ganha o seu
+        Book book = entityManager.persist(createNewBook(books++ == 0 ? "123" : "123-" + books));
 
         Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(localDate).build();
         entityManager.persist(loan);
@@ -117,4 +141,115 @@ public class LoanRepositoryTest {
                 .isbn(isbn)
                 .build();
     }
+
+    @Test
+    @DisplayName("Deve paginar emprestimos pelo id a partir do cursor")
+    public void findByIsbnOrCustomerAfterTest(){
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Loan second = createAndPersistLoan(LocalDate.now());
+
+        Slice<Loan> firstPage = repository.findByIsbnOrCustomerAfter("123", "Fulano", null, 1);
+        Slice<Loan> lastPage = repository.findByIsbnOrCustomerAfter("123", "Fulano", first.getId(), 1);
+
+        assertThat(firstPage.getContent()).containsExactly(first);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(lastPage.getContent()).containsExactly(second);
+        assertThat(lastPage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve obter emprestimos pelo livro sem count")
+    public void findSliceByBookTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+
+        Slice<Loan> result = repository.findSliceByBook(loan.getBook(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).containsExactly(loan);
+        assertThat(result.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve obter emprestimos atrasados em blocos pelo id")
+    public void findLateLoansAfterTest(){
+        Loan first = createAndPersistLoan(LocalDate.now().minusDays(5));
+        createAndPersistLoan(LocalDate.now());
+        Loan second = createAndPersistLoan(LocalDate.now().minusDays(6));
+
+        Slice<Loan> firstChunk = repository.findLateLoansAfter(LocalDate.now().minusDays(4), 0L, PageRequest.of(0, 1));
+        Slice<Loan> lastChunk = repository.findLateLoansAfter(LocalDate.now().minusDays(4), first.getId(), PageRequest.of(0, 1));
+
+        assertThat(firstChunk.getContent()).containsExactly(first);
+        assertThat(firstChunk.hasNext()).isTrue();
+        assertThat(lastChunk.getContent()).containsExactly(second);
+        assertThat(lastChunk.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve listar emprestimos com livro sem uma query por linha")
+    public void loanListingStatementCountTest(){
+        long smallPage = statementsToListLoans(2);
+        long bigPage = statementsToListLoans(20);
+
+        //ids da pagina + select com fetch join + count
+        assertThat(smallPage).isEqualTo(3);
+        assertThat(bigPage).isEqualTo(smallPage);
+    }
+
+    private long statementsToListLoans(int loans){
+        for (int i = 0; i < loans; i++) {
+            createAndPersistLoan(LocalDate.now());
+        }
+        Statistics statistics = clearAndGetStatistics();
+
+        repository.findByIsbnOrCustomer("123", "Fulano", PageRequest.of(0, loans))
+                .forEach(loan -> mapper.toDto(loan));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics clearAndGetStatistics(){
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager()
+                .getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    @Test
+    @DisplayName("Deve devolver emprestimos em massa liberando os livros")
+    public void returnAllTest(){
+        Loan first = createAndPersistLoan(LocalDate.now());
+        Loan second = createAndPersistLoan(LocalDate.now());
+        Loan untouched = createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+
+        List<Long> existing = repository.findExistingIds(Arrays.asList(first.getId(), second.getId(), -1L));
+        int updated = repository.returnAll(existing);
+
+        assertThat(existing).containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.findById(first.getId()).get().getReturned()).isTrue();
+        assertThat(repository.findById(first.getId()).get().getActiveBookId()).isNull();
+        assertThat(repository.findById(untouched.getId()).get().getReturned()).isFalse();
+
+        repository.saveAndFlush(Loan.builder().book(first.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build());
+    }
+
+    @Test
+    @DisplayName("Não deve contar nem atualizar emprestimos ja devolvidos na devolução em massa")
+    public void returnAllAlreadyReturnedTest(){
+        Loan open = createAndPersistLoan(LocalDate.now());
+        Loan returned = createAndPersistLoan(LocalDate.now());
+        returned.setReturned(true);
+        entityManager.flush();
+        List<Long> ids = Arrays.asList(open.getId(), returned.getId());
+
+        assertThat(repository.findReturnedIds(ids)).containsExactly(returned.getId());
+        assertThat(repository.returnAll(ids)).isEqualTo(1);
+        assertThat(repository.findReturnedIds(ids)).containsExactlyInAnyOrder(open.getId(), returned.getId());
+        assertThat(repository.returnAll(ids)).isZero();
+    }
 }
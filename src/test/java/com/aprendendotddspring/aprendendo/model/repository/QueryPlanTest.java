@@ -0,0 +1,158 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regressao de plano de execucao: roda as consultas quentes dos repositorios
+ * sobre uma base grande e falha se alguma ler a tabela inteira.
+ * Usa EXPLAIN ANALYZE do H2, que informa as linhas lidas (scanCount) por tabela.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.aprendendotddspring.aprendendo.model.repository.RecordingStatementInspector")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class QueryPlanTest {
+
+    static final int LOANS = 20000;
+
+    /** Uma consulta indexada le uma fracao pequena da tabela; um full scan le todas as linhas. */
+    static final int MAX_SCANNED_ROWS = LOANS / 20;
+
+    static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    public void seed(){
+        if (jdbcTemplate.queryForObject("select count(*) from loan", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("insert into book (id, title, author, isbn) " +
+                "select x, 'Titulo ' || x, 'Autor ' || mod(x, 100), 'isbn-' || x from system_range(1, " + LOANS + ")");
+        // 1% atrasado, 4% em aberto recente, o resto devolvido
+        jdbcTemplate.update("insert into loan (customer, id_book, loan_date, returned, active_book_id) " +
+                "select 'Cliente ' || mod(x, 2000), x, " +
+                "case when mod(x, 100) = 0 then dateadd('DAY', -10, current_date) else dateadd('DAY', -mod(x, 3), current_date) end, " +
+                "mod(x, 100) >= 5, " +
+                "case when mod(x, 100) < 5 then x end " +
+                "from system_range(1, " + LOANS + ")");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("Deve listar e contar emprestimos do livro pelo indice")
+    public void findByBookPlanTest(){
+        Book book = Book.builder().id(500L).version(0L).build();
+
+        // segunda pagina para o Spring Data executar tambem o count
+        List<String> sql = capture(() -> loanRepository.findByBook(book, PageRequest.of(1, 10)));
+
+        assertIndexed(sql.get(0), 500L, 10, 10);
+        assertIndexed(sql.get(1), 500L);
+    }
+
+    @Test
+    @DisplayName("Deve buscar emprestimos atrasados em blocos pelo indice")
+    public void findLateLoansAfterPlanTest(){
+        Date threeDaysAgo = Date.valueOf(LocalDate.now().minusDays(4));
+
+        String sql = capture(() -> loanRepository.findLateLoansAfter(threeDaysAgo.toLocalDate(), 0L, PageRequest.of(0, 500))).get(0);
+
+        assertIndexed(sql, threeDaysAgo, 0L, 501);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar e contar emprestimos por isbn ou cliente pelos indices")
+    public void findByIsbnOrCustomerPlanTest(){
+        // segunda pagina para o count ser executado; o segundo statement carrega os ids pela chave
+        List<String> sql = capture(() -> loanRepository.findByIsbnOrCustomer("isbn-500", "Cliente 7", PageRequest.of(1, 5)));
+
+        assertThat(sql).hasSize(3);
+        assertIndexed(sql.get(0), "isbn-500", "Cliente 7", 5, 5);
+        assertIndexed(sql.get(2), "isbn-500", "Cliente 7");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar emprestimos por um unico parametro pelo indice")
+    public void findByIsbnOrCustomerSingleFilterPlanTest(){
+        String byIsbn = capture(() -> loanRepository.findSliceByIsbnOrCustomer("isbn-500", null, PageRequest.of(0, 10))).get(0);
+        String byCustomer = capture(() -> loanRepository.findByIsbnOrCustomerAfter(null, "Cliente 7", 0L, 500)).get(0);
+
+        assertIndexed(byIsbn, "isbn-500", 11);
+        assertIndexed(byCustomer, "Cliente 7", 0L, 501);
+    }
+
+    @Test
+    @DisplayName("Deve buscar livro pelo isbn pelo indice")
+    public void findByIsbnPlanTest(){
+        String sql = capture(() -> bookRepository.findByIsbn("isbn-500")).get(0);
+
+        assertIndexed(sql, "isbn-500");
+    }
+
+    private List<String> capture(Runnable query){
+        RecordingStatementInspector.STATEMENTS.clear();
+        query.run();
+        return new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+    }
+
+    /** Executa EXPLAIN ANALYZE com os parametros na ordem em que aparecem no SQL. */
+    private void assertIndexed(String sql, Object... params){
+        String plan = jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain analyze " + sql)) {
+                assertThat(statement.getParameterMetaData().getParameterCount())
+                        .as("parametros de %s", sql)
+                        .isEqualTo(params.length);
+                for (int i = 0; i < params.length; i++) {
+                    statement.setObject(i + 1, params[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+
+        assertThat(plan).as(plan).doesNotContain("tableScan");
+        Matcher scanCount = SCAN_COUNT.matcher(plan);
+        while (scanCount.find()) {
+            assertThat(Integer.parseInt(scanCount.group(1))).as(plan).isLessThan(MAX_SCANNED_ROWS);
+        }
+    }
+}
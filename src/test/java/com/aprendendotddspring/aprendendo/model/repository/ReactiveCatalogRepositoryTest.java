@@ -0,0 +1,137 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.config.DataSourceConfig;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O R2DBC usa conexoes proprias, entao o teste roda sem transacao para os
+ * dados gravados pelo JPA ficarem visiveis, e a base e a mesma nos dois lados.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactivecatalog;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivecatalog?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.r2dbc.username=sa"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({R2dbcAutoConfiguration.class, R2dbcDataAutoConfiguration.class})
+@Import({DataSourceConfig.class, ReactiveCatalogRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReactiveCatalogRepositoryTest {
+
+    @Autowired
+    ReactiveCatalogRepository repository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo id")
+    public void findBookByIdTest(){
+        Book book = bookRepository.save(createNewBook("123", "Aventuras"));
+
+        Book found = repository.findBookById(book.getId()).block();
+
+        assertThat(found.getId()).isEqualTo(book.getId());
+        assertThat(found.getTitle()).isEqualTo("Aventuras");
+        assertThat(found.getIsbn()).isEqualTo("123");
+        assertThat(repository.findBookById(book.getId() + 1000).blockOptional()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros por trecho do titulo ignorando maiusculas, em ordem de id")
+    public void findBooksTest(){
+        Book first = bookRepository.save(createNewBook("1", "As Aventuras"));
+        bookRepository.save(createNewBook("2", "Outro livro"));
+        Book third = bookRepository.save(createNewBook("3", "Mais aventuras"));
+        bookRepository.save(createNewBook("4", "100% aventura"));
+
+        List<Long> ids = repository.findBooks(Book.builder().title("AVENTURAS").build())
+                .map(Book::getId)
+                .collectList()
+                .block();
+
+        assertThat(ids).containsExactly(first.getId(), third.getId());
+        assertThat(repository.findBooks(Book.builder().title("0%").build()).collectList().block()).hasSize(1);
+        assertThat(repository.findBooks(Book.builder().build()).collectList().block()).hasSize(4);
+    }
+
+    @Test
+    @DisplayName("Deve emitir so os livros pedidos pelo assinante")
+    public void findBooksOnDemandTest(){
+        for (int i = 0; i < 5; i++) {
+            bookRepository.save(createNewBook("isbn-" + i, "Livro " + i));
+        }
+
+        List<String> titles = repository.findBooks(Book.builder().build())
+                .limitRate(1)
+                .take(2)
+                .map(Book::getTitle)
+                .collectList()
+                .block();
+
+        assertThat(titles).containsExactly("Livro 0", "Livro 1");
+    }
+
+    @Test
+    @DisplayName("Deve obter os emprestimos do livro com os dados do livro")
+    public void findLoansByBookTest(){
+        Book book = bookRepository.save(createNewBook("123", "Aventuras"));
+        Book other = bookRepository.save(createNewBook("456", "Outro"));
+        Loan loan = loanRepository.save(Loan.builder().book(book).customer("Fulano")
+                .customerEmail("fulano@email.com").loanDate(LocalDate.now()).returned(true).build());
+        loanRepository.save(Loan.builder().book(other).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        List<Loan> loans = repository.findLoansByBook(book.getId()).collectList().block();
+
+        assertThat(loans).hasSize(1);
+        Loan found = loans.get(0);
+        assertThat(found.getId()).isEqualTo(loan.getId());
+        assertThat(found.getCustomer()).isEqualTo("Fulano");
+        assertThat(found.getCustomerEmail()).isEqualTo("fulano@email.com");
+        assertThat(found.getLoanDate()).isEqualTo(LocalDate.now());
+        assertThat(found.getBook().getIsbn()).isEqualTo("123");
+        assertThat(loans.stream().map(Loan::getCustomer).collect(Collectors.toList())).containsExactly("Fulano");
+    }
+
+    private Book createNewBook(String isbn, String title) {
+        return Book.builder().isbn(isbn).author("Fulano").title(title).build();
+    }
+}
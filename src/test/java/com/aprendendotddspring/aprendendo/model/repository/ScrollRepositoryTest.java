@@ -0,0 +1,83 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sem a transacao do teste: a sessao sem estado do scroll usa outra conexao
+ * e so enxerga o que ja foi commitado.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ScrollRepositoryTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os livros em ordem de id")
+    public void scrollAllBooksTest(){
+        List<Book> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            saved.add(bookRepository.save(Book.builder().isbn("isbn-" + i).title("Livro " + i).author("Autor").build()));
+        }
+
+        List<Book> books = new ArrayList<>();
+        bookRepository.scrollAll(books::add);
+
+        assertThat(books).extracting(Book::getId)
+                .containsExactlyElementsOf(saved.stream().map(Book::getId).collect(Collectors.toList()));
+        assertThat(books.get(0).getTitle()).isEqualTo("Livro 0");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os emprestimos com o livro carregado")
+    public void scrollAllLoansTest(){
+        Book book = bookRepository.save(Book.builder().isbn("123").title("Aventuras").author("Autor").build());
+        Book other = bookRepository.save(Book.builder().isbn("456").title("Outro").author("Autor").build());
+        Loan first = loanRepository.save(Loan.builder().book(book).customer("Fulano")
+                .loanDate(LocalDate.now()).returned(true).build());
+        Loan second = loanRepository.save(Loan.builder().book(other).customer("Ciclano")
+                .loanDate(LocalDate.now()).build());
+
+        List<Loan> loans = new ArrayList<>();
+        loanRepository.scrollAllWithBook(loans::add);
+
+        assertThat(loans).extracting(Loan::getId).containsExactly(first.getId(), second.getId());
+        assertThat(loans.get(0).getBook().getIsbn()).isEqualTo("123");
+        assertThat(loans.get(1).getBook().getTitle()).isEqualTo("Outro");
+    }
+}
@@ -0,0 +1,103 @@
+package com.aprendendotddspring.aprendendo.model.repository;
+
+import com.aprendendotddspring.aprendendo.config.DataSourceConfig;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.service.EmailService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Os scrolls das exportacoes pegam a conexao do pool de streaming e nao
+ * ocupam o pool das requisicoes, que mantem a deteccao de vazamento curta.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:streaming;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DataSourceConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StreamingDataSourceTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    @Autowired
+    HikariDataSource dataSource;
+
+    @Autowired
+    @Qualifier(DataSourceConfig.STREAMING_DATA_SOURCE)
+    HikariDataSource streamingDataSource;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    public void setUp(){
+        Book book = bookRepository.save(Book.builder().isbn("123").title("Aventuras").author("Autor").build());
+        loanRepository.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os livros numa conexao so de leitura do pool de streaming")
+    public void scrollBooksOnStreamingPoolTest(){
+        List<Integer> active = new ArrayList<>();
+        List<Integer> streaming = new ArrayList<>();
+
+        bookRepository.scrollAll(book -> {
+            active.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+            streaming.add(streamingDataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+
+        assertThat(active).containsExactly(0);
+        assertThat(streaming).containsExactly(1);
+        assertThat(streamingDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        assertThat(streamingDataSource.isReadOnly()).isTrue();
+        assertThat(streamingDataSource.getPoolName()).isEqualTo("library-streaming-pool");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os emprestimos com o livro no pool de streaming")
+    public void scrollLoansOnStreamingPoolTest(){
+        List<String> isbns = new ArrayList<>();
+        List<Integer> active = new ArrayList<>();
+
+        loanRepository.scrollAllWithBook(loan -> {
+            isbns.add(loan.getBook().getIsbn());
+            active.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+        });
+
+        assertThat(isbns).containsExactly("123");
+        assertThat(active).containsExactly(0);
+        assertThat(streamingDataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+}
@@ -0,0 +1,124 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.dto.BookImportReportDTO;
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.service.impl.BookImportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookImportServiceTest {
+
+    BookImportService service;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new BookImportServiceImpl(repository, bookService, searchIndex, 2, 10);
+        when(repository.findExistingIsbns(anyCollection())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Deve importar em blocos com uma consulta de isbn por bloco")
+    public void importInChunksTest(){
+        List<BookImportRow> rows = Arrays.asList(row(1, "1"), row(2, "2"), row(3, "3"));
+
+        BookImportReportDTO report = service.importBooks(rows.iterator());
+
+        assertThat(report.getReceived()).isEqualTo(3);
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getRejected()).isZero();
+        verify(repository, times(2)).findExistingIsbns(anyCollection());
+        verify(repository, times(2)).saveAll(anyList());
+        verify(searchIndex, times(2)).indexAll(anyList());
+        verify(bookService, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar isbns cadastrados, repetidos no arquivo e linhas invalidas")
+    @SuppressWarnings("unchecked")
+    public void rejectRowsTest(){
+        when(repository.findExistingIsbns(anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).contains("2")
+                        ? Collections.singletonList("2")
+                        : Collections.emptyList());
+        List<BookImportRow> rows = Arrays.asList(
+                row(1, "1"),
+                row(2, "1"),
+                BookImportRow.invalid(3, null, "JSON inválido"),
+                row(4, "2"));
+
+        BookImportReportDTO report = service.importBooks(rows.iterator());
+
+        assertThat(report.getReceived()).isEqualTo(4);
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(report.getErrors()).extracting("row").containsExactly(2L, 3L, 4L);
+        assertThat(report.getErrors()).extracting("message")
+                .containsExactly("ISBN duplicado na importação", "JSON inválido", "ISBN já cadastrado");
+    }
+
+    @Test
+    @DisplayName("Deve refazer o bloco livro a livro quando outro cadastro violar a constraint")
+    public void retryRowByRowOnConstraintViolationTest(){
+        when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("unique"));
+        BookImportRow first = row(1, "1");
+        first.getBook().setId(99L);
+        BookImportRow second = row(2, "2");
+        when(bookService.save(second.getBook())).thenThrow(new BusinessException("ISBN já cadastrado"));
+
+        BookImportReportDTO report = service.importBooks(Arrays.asList(first, second).iterator());
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getErrors().get(0).getIsbn()).isEqualTo("2");
+        assertThat(first.getBook().getId()).isNull();
+        verify(searchIndex, never()).indexAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve limitar os erros detalhados no relatorio")
+    public void maxReportedErrorsTest(){
+        BookImportService limited = new BookImportServiceImpl(repository, bookService, searchIndex, 2, 1);
+        List<BookImportRow> rows = Arrays.asList(
+                BookImportRow.invalid(1, null, "erro"),
+                BookImportRow.invalid(2, null, "erro"));
+
+        BookImportReportDTO report = limited.importBooks(rows.iterator());
+
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).hasSize(1);
+    }
+
+    private BookImportRow row(long row, String isbn) {
+        return BookImportRow.valid(row, Book.builder().isbn(isbn).title("Titulo").author("Autor").build());
+    }
+}
@@ -0,0 +1,207 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.ServiceUnavailableException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.index = new BookSearchIndex("", 1000, Mockito.mock(BookRepository.class));
+        index.reconcile();
+        index.index(Book.builder().id(1L).title("Spring em acao").author("Craig Walls").isbn("978-85-7522").build());
+        index.index(Book.builder().id(2L).title("Java efetivo").author("Joshua Bloch").isbn("978-85-5080").build());
+        index.index(Book.builder().id(3L).title("Arquitetura limpa").author("Robert Martin").isbn("978-85-5080-815-7").build());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelo titulo, autor e isbn")
+    public void searchByFieldsTest(){
+        assertThat(index.search("spring", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(index.search("BLOCH", PageRequest.of(0, 10)).getContent()).containsExactly(2L);
+        assertThat(index.search("978-85-5080-815-7", PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve paginar os resultados com o total")
+    public void paginateResultsTest(){
+        Page<Long> result = index.search("978", PageRequest.of(1, 2));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve refletir alteracoes e remocoes de livros")
+    public void updateAndRemoveTest(){
+        index.index(Book.builder().id(1L).title("Spring Boot").author("Craig Walls").isbn("978-85-7522").build());
+        index.remove(2L);
+
+        assertThat(index.search("acao", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(index.search("boot", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(index.search("java", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve aceitar texto com caracteres da sintaxe de consulta")
+    public void escapeQuerySyntaxTest(){
+        assertThat(index.search("java (efetivo", PageRequest.of(0, 10)).getContent()).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar buscas enquanto o indice ainda estiver sendo construido")
+    public void searchBeforeReconcileTest() throws Exception {
+        CountDownLatch scrolling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BookRepository repository = Mockito.mock(BookRepository.class);
+        doAnswer(invocation -> {
+            scrolling.countDown();
+            release.await();
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(book(1L, "Spring em acao"));
+            return null;
+        }).when(repository).scrollAll(any());
+
+        BookSearchIndex building = new BookSearchIndex("", 1000, repository);
+        try {
+            building.reconcileInBackground();
+            assertThat(scrolling.await(2, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(building.isReady()).isFalse();
+            assertThatThrownBy(() -> building.search("spring", PageRequest.of(0, 10)))
+                    .isInstanceOf(ServiceUnavailableException.class);
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!building.isReady() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(building.search("spring", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        } finally {
+            release.countDown();
+            building.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar no disco a cada commit-every alteracoes, sem esperar o close")
+    public void commitEveryWritesTest(@TempDir Path path) throws IOException {
+        BookSearchIndex persisted = new BookSearchIndex(path.toString(), 2, Mockito.mock(BookRepository.class));
+        try {
+            persisted.index(book(1L, "Spring em acao"));
+            assertThat(committedDocs(path)).isZero();
+
+            persisted.index(book(2L, "Java efetivo"));
+            assertThat(committedDocs(path)).isEqualTo(2);
+
+            persisted.remove(1L);
+            persisted.commitPending();
+            assertThat(committedDocs(path)).isEqualTo(1);
+        } finally {
+            persisted.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir o indice em disco quando nao bater com a base")
+    public void rebuildStaleIndexTest(@TempDir Path path) throws IOException {
+        Book spring = book(1L, "Spring em acao");
+        Book java = book(2L, "Java efetivo");
+        BookSearchIndex persisted = new BookSearchIndex(path.toString(), 1000, Mockito.mock(BookRepository.class));
+        persisted.index(spring);
+        persisted.close();
+
+        BookRepository repository = Mockito.mock(BookRepository.class);
+        when(repository.count()).thenReturn(2L);
+        when(repository.findMaxLastModified()).thenReturn(java.getLastModified());
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(spring);
+            action.accept(java);
+            return null;
+        }).when(repository).scrollAll(any());
+
+        persisted = new BookSearchIndex(path.toString(), 1000, repository);
+        try {
+            persisted.reconcile();
+
+            assertThat(persisted.search("java", PageRequest.of(0, 10)).getContent()).containsExactly(2L);
+            assertThat(committedDocs(path)).isEqualTo(2);
+        } finally {
+            persisted.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Nao deve reconstruir o indice em disco que ja bate com a base")
+    public void keepUpToDateIndexTest(@TempDir Path path) throws IOException {
+        Book spring = book(1L, "Spring em acao");
+        BookSearchIndex persisted = new BookSearchIndex(path.toString(), 1000, Mockito.mock(BookRepository.class));
+        persisted.index(spring);
+        persisted.close();
+
+        BookRepository repository = Mockito.mock(BookRepository.class);
+        when(repository.count()).thenReturn(1L);
+        when(repository.findMaxLastModified()).thenReturn(spring.getLastModified());
+
+        persisted = new BookSearchIndex(path.toString(), 1000, repository);
+        try {
+            persisted.reconcile();
+
+            verify(repository, never()).scrollAll(any());
+            assertThat(persisted.search("spring", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        } finally {
+            persisted.close();
+        }
+    }
+
+    private Book book(Long id, String title) {
+        return Book.builder().id(id).title(title).author("Autor").isbn("isbn-" + id)
+                .lastModified(Instant.ofEpochMilli(1000 * id)).build();
+    }
+
+    /** Documentos visiveis para quem abre o diretorio agora, ou seja, so o que ja foi gravado. */
+    private int committedDocs(Path path) throws IOException {
+        try (Directory directory = FSDirectory.open(path);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.numDocs();
+        } catch (IndexNotFoundException e) {
+            return 0;
+        }
+    }
+}
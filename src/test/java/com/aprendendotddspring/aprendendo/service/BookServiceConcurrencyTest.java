@@ -0,0 +1,122 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Example;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Varias threads cadastrando o mesmo isbn ao mesmo tempo contra a base real:
+ * so a constraint unica decide quem ganha. Sem transacao no teste, os livros
+ * devolvidos pelo servico ficam desanexados, como no controller.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+
+    @Autowired
+    BookRepository repository;
+
+    @MockBean
+    EmailService emailService;
+
+    BookService service;
+    BookSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setUp(){
+        this.searchIndex = Mockito.mock(BookSearchIndex.class);
+        this.service = new BookServiceImpl(repository,
+                new IsbnIndex(100, new SimpleMeterRegistry()),
+                searchIndex);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar apenas um livro quando varias threads salvam o mesmo isbn")
+    public void concurrentSaveWithSameIsbnTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Book>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.save(Book.builder().isbn("123").title("Titulo " + thread).author("Autor").build());
+                }));
+            }
+            start.countDown();
+
+            int saved = 0;
+            int rejected = 0;
+            for (Future<Book> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    saved++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause())
+                            .isInstanceOf(BusinessException.class)
+                            .hasMessage("ISBN já cadastrado");
+                    rejected++;
+                }
+            }
+
+            assertThat(saved).isEqualTo(1);
+            assertThat(rejected).isEqualTo(THREADS - 1);
+            assertThat(repository.count(Example.of(Book.builder().isbn("123").build()))).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve devolver e indexar a versao salva ao atualizar um livro desanexado")
+    public void updateDetachedBookTest(){
+        Book saved = service.save(Book.builder().isbn("123").title("Titulo").author("Autor").build());
+        Book detached = Book.builder().id(saved.getId()).version(saved.getVersion()).lastModified(saved.getLastModified())
+                .isbn("123").title("Novo titulo").author("Autor").build();
+
+        Book updated = service.update(detached);
+
+        assertThat(updated.getVersion()).isEqualTo(saved.getVersion() + 1);
+        assertThat(updated.getLastModified()).isAfterOrEqualTo(saved.getLastModified());
+        assertThat(updated.getTitle()).isEqualTo("Novo titulo");
+        assertThat(repository.findById(saved.getId()).get().getVersion()).isEqualTo(updated.getVersion());
+        Mockito.verify(searchIndex).index(updated);
+    }
+}
@@ -4,13 +4,16 @@ import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
 import com.aprendendotddspring.aprendendo.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -18,6 +21,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -31,12 +35,18 @@ public class BookServiceTest {
 
     BookService service;
 
+    IsbnIndex isbnIndex;
+
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookSearchIndex searchIndex;
+
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.isbnIndex = new IsbnIndex(100, new SimpleMeterRegistry());
+        this.service = new BookServiceImpl(repository, isbnIndex, searchIndex);
     }
 
     @Test
@@ -46,7 +56,7 @@ public class BookServiceTest {
         //cenario
         Book book = createValidBook();
 
-        when( repository.save(book) ).thenReturn(Book
+        when( repository.saveAndFlush(book) ).thenReturn(Book
                 .builder()
                 .author("Eu")
                 .isbn("123")
@@ -79,7 +89,7 @@ public class BookServiceTest {
     public void shouldNotSaveABookWithDuplicatedISBN(){
         //cenario
         Book book = createValidBook();
-        when(repository.existsByIsbn(Mockito.any())).thenReturn(true);
+        when(repository.saveAndFlush(book)).thenThrow(isbnViolation());
 
         //execução
         Throwable excption = Assertions.catchThrowable(() -> service.save(book));
@@ -88,7 +98,40 @@ public class BookServiceTest {
         assertThat(excption)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("ISBN já cadastrado");
-        Mockito.verify(repository, Mockito.never()).save(book);
+        verify(searchIndex, never()).index(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve propagar violações de outras constraints sem traduzir")
+    public void shouldNotTranslateOtherConstraintViolations(){
+        Book book = createValidBook();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", new SQLException(), "NOT_NULL_TITLE"));
+        when(repository.saveAndFlush(book)).thenThrow(violation);
+
+        Throwable excption = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(excption).isSameAs(violation);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio ao alterar o isbn para um já cadastrado")
+    public void shouldNotUpdateToDuplicatedISBN(){
+        Book book = createValidBook();
+        book.setId(1L);
+        when(repository.saveAndFlush(book)).thenThrow(isbnViolation());
+
+        Throwable excption = Assertions.catchThrowable(() -> service.update(book));
+
+        assertThat(excption)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("ISBN já cadastrado");
+        assertThat(isbnIndex.getId(book.getIsbn())).isEmpty();
+    }
+
+    private DataIntegrityViolationException isbnViolation() {
+        return new DataIntegrityViolationException("unique",
+                new ConstraintViolationException("unique", new SQLException(), "PUBLIC.UK_BOOK_ISBN_INDEX_1"));
     }
 
     @Test
@@ -159,7 +202,7 @@ public class BookServiceTest {
         //execução
         org.junit.jupiter.api.Assertions.assertThrows(IllegalArgumentException.class, () -> service.update(book));
         //verificação
-        Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verify(repository, Mockito.never()).saveAndFlush(book);
     }
 
     @Test
@@ -173,10 +216,11 @@ public class BookServiceTest {
                 .author("eu")
                 .isbn("321")
                 .build();
+        when(repository.saveAndFlush(book)).thenReturn(book);
         //execução
         org.junit.jupiter.api.Assertions.assertDoesNotThrow(()->service.update(book));
         //verificação
-        Mockito.verify(repository, Mockito.times(1)).save(book);
+        Mockito.verify(repository, Mockito.times(1)).saveAndFlush(book);
     }
 
     @Test
@@ -190,10 +234,10 @@ public class BookServiceTest {
         //simulação
         Book updatedBook = createValidBook();
         updatedBook.setId(id);
-        when(repository.save(updatingBook)).thenReturn(updatedBook);
+        when(repository.saveAndFlush(updatingBook)).thenReturn(updatedBook);
 
         //Execução
-        Book book = service.update(updatedBook);
+        Book book = service.update(updatingBook);
         System.out.println(book);
         //verificação
         assertThat(book.getId()).isEqualTo(updatedBook.getId());
@@ -246,4 +290,64 @@ public class BookServiceTest {
         verify(repository, times(1)).findByIsbn(isbn);
 
     }
+
+    @Test
+    @DisplayName("Deve rejeitar ISBN duplicado pelo indice sem consultar a base")
+    public void shouldRejectDuplicatedIsbnFromIndex(){
+        Book book = createValidBook();
+        isbnIndex.put(book.getIsbn(), 11L);
+
+        Throwable excption = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(excption)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("ISBN já cadastrado");
+        verify(repository, never()).saveAndFlush(book);
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo ISBN indexado usando a chave primaria")
+    public void getIndexedBookByIsbn(){
+        String isbn = "1230";
+        Book book = Book.builder().id(11L).isbn(isbn).build();
+        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(book));
+        when(repository.findById(11L)).thenReturn(Optional.of(book));
+
+        service.getBookByIsbn(isbn);
+        Optional<Book> found = service.getBookByIsbn(isbn);
+
+        assertThat(found).contains(book);
+        verify(repository, times(1)).findByIsbn(isbn);
+        verify(repository, times(1)).findById(11L);
+    }
+
+    @Test
+    @DisplayName("Deve remover o ISBN do indice ao deletar um livro")
+    public void deleteBookRemovesIsbnFromIndex(){
+        Book book = createValidBook();
+        book.setId(11L);
+        isbnIndex.put(book.getIsbn(), book.getId());
+
+        service.delete(book);
+
+        assertThat(isbnIndex.getId(book.getIsbn())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros na ordem de relevancia do indice")
+    public void searchBooksInRankOrderTest(){
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        Book first = Book.builder().id(2L).title("Java").build();
+        Book second = Book.builder().id(1L).title("Java e Spring").build();
+
+        when(searchIndex.search("java", pageRequest))
+                .thenReturn(new PageImpl<>(Arrays.asList(2L, 1L), pageRequest, 2));
+        when(repository.findAllById(Arrays.asList(2L, 1L)))
+                .thenReturn(Arrays.asList(second, first));
+
+        Page<Book> result = service.search("java", pageRequest);
+
+        assertThat(result.getContent()).containsExactly(first, second);
+        assertThat(result.getTotalElements()).isEqualTo(2);
+    }
 }
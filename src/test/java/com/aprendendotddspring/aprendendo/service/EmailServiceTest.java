@@ -0,0 +1,133 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.config.MailDispatchProperties;
+import com.aprendendotddspring.aprendendo.service.impl.EmailServiceImpl;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    EmailServiceImpl emailService;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        if (emailService != null) {
+            emailService.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por destinatario em lotes")
+    public void sendMailsTest() throws Exception {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        MailDispatchProperties properties = new MailDispatchProperties();
+        properties.setBatchSize(2);
+        emailService = new EmailServiceImpl(sender, properties, "biblioteca@library.com", false, registry);
+
+        emailService.sendMails("devolva o livro", Arrays.asList("a@email.com", "b@email.com", "c@email.com"));
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 3)).isTrue();
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertThat(messages).hasSize(3);
+        assertThat(messages[0].getAllRecipients()).hasSize(1);
+        assertThat(messages[0].getFrom()[0].toString()).isEqualTo("biblioteca@library.com");
+    }
+
+    @Test
+    @DisplayName("Deve tentar novamente apenas as mensagens que falharam")
+    public void retryFailedMessagesTest() throws Exception {
+        RecordingMailSender sender = new RecordingMailSender(messages -> {
+            if (messages.length > 1) {
+                throw new MailSendException(Collections.singletonMap(messages[1], new RuntimeException("timeout")));
+            }
+        });
+        MailDispatchProperties properties = new MailDispatchProperties();
+        properties.setBackoff(10);
+        emailService = new EmailServiceImpl(sender, properties, "biblioteca@library.com", false, registry);
+
+        emailService.sendMails("devolva o livro", Arrays.asList("a@email.com", "b@email.com"));
+
+        assertThat(sender.sent.poll(2, TimeUnit.SECONDS)).hasSize(2);
+        SimpleMailMessage[] retried = sender.sent.poll(2, TimeUnit.SECONDS);
+        assertThat(retried).hasSize(1);
+        assertThat(retried[0].getTo()).containsExactly("b@email.com");
+        assertThat(registry.get("library.mail.batch").tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar o lote depois de offerTimeout com a fila cheia sem prender quem chama")
+    public void backPressureTest() throws Exception {
+        CountDownLatch smtpBlocked = new CountDownLatch(1);
+        RecordingMailSender sender = new RecordingMailSender(messages -> {
+            try {
+                smtpBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        MailDispatchProperties properties = new MailDispatchProperties();
+        properties.setWorkers(1);
+        properties.setQueueCapacity(1);
+        properties.setOfferTimeout(100);
+        emailService = new EmailServiceImpl(sender, properties, "biblioteca@library.com", false, registry);
+
+        emailService.sendMails("devolva o livro", Collections.singletonList("a@email.com"));
+        emailService.sendMails("devolva o livro", Collections.singletonList("b@email.com"));
+        assertThat(sender.sent.poll(2, TimeUnit.SECONDS)[0].getTo()).containsExactly("a@email.com");
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> emailService.sendMails("devolva o livro", Collections.singletonList("c@email.com")))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(90L, 1000L);
+
+        smtpBlocked.countDown();
+        assertThat(sender.sent.poll(2, TimeUnit.SECONDS)[0].getTo()).containsExactly("b@email.com");
+        assertThat(sender.sent.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    /** Registra cada lote enviado depois de aplicar o comportamento do SMTP simulado. */
+    static class RecordingMailSender extends JavaMailSenderImpl {
+
+        final BlockingQueue<SimpleMailMessage[]> sent = new LinkedBlockingQueue<>();
+        final Consumer<SimpleMailMessage[]> smtp;
+
+        RecordingMailSender(Consumer<SimpleMailMessage[]> smtp) {
+            this.smtp = smtp;
+        }
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            sent.add(simpleMessages);
+            smtp.accept(simpleMessages);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnIndexTest {
+
+    SimpleMeterRegistry registry;
+
+    IsbnIndex index;
+
+    @BeforeEach
+    public void setUp(){
+        this.registry = new SimpleMeterRegistry();
+        this.index = new IsbnIndex(2, registry);
+    }
+
+    @Test
+    @DisplayName("Deve despejar o ISBN menos usado quando o indice estiver cheio")
+    public void evictLeastRecentlyUsedTest(){
+        index.put("1", 1L);
+        index.put("2", 2L);
+        index.getId("1");
+
+        index.put("3", 3L);
+
+        assertThat(index.getId("1")).contains(1L);
+        assertThat(index.getId("2")).isEmpty();
+        assertThat(index.getId("3")).contains(3L);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(registry.get("library.isbn.index.evictions").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve substituir o ISBN antigo quando o livro for alterado")
+    public void replaceIsbnOnUpdateTest(){
+        index.put("1", 1L);
+
+        index.put("9", 1L);
+
+        assertThat(index.getId("1")).isEmpty();
+        assertThat(index.getId("9")).contains(1L);
+    }
+
+    @Test
+    @DisplayName("Deve contabilizar hits e misses")
+    public void hitAndMissMetricsTest(){
+        index.put("1", 1L);
+
+        index.getId("1");
+        index.getId("2");
+        index.getId("2");
+
+        assertThat(registry.get("library.isbn.index.lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.isbn.index.lookups").tag("result", "miss").counter().count()).isEqualTo(2);
+    }
+}
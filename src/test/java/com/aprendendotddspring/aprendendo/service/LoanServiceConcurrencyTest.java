@@ -0,0 +1,112 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
+import com.aprendendotddspring.aprendendo.entity.Book;
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import com.aprendendotddspring.aprendendo.model.repository.BookRepository;
+import com.aprendendotddspring.aprendendo.model.repository.LoanRepostory;
+import com.aprendendotddspring.aprendendo.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Varios balcoes emprestando o mesmo livro ao mesmo tempo, em rodadas:
+ * a cada rodada so um emprestimo pode ficar aberto, e a devolucao libera o livro.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepostory loanRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    LoanService service;
+
+    ExecutorService executor;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new LoanServiceImpl(loanRepository);
+        this.executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        executor.shutdownNow();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve abrir apenas um emprestimo quando varias threads emprestam o mesmo isbn")
+    public void concurrentLoansOfSameIsbnTest() throws Exception {
+        bookRepository.save(Book.builder().isbn("123").title("Titulo").author("Autor").build());
+
+        for (int round = 0; round < ROUNDS; round++) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Loan>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String customer = "Cliente " + round + "-" + i;
+                results.add(executor.submit(() -> {
+                    Book book = bookRepository.findByIsbn("123").get();
+                    start.await();
+                    return service.save(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+                }));
+            }
+            start.countDown();
+
+            List<Loan> opened = new ArrayList<>();
+            for (Future<Loan> result : results) {
+                try {
+                    opened.add(result.get(10, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause())
+                            .isInstanceOf(BusinessException.class)
+                            .hasMessage("Book already loaned");
+                }
+            }
+
+            assertThat(opened).hasSize(1);
+            Loan loan = opened.get(0);
+            assertThat(loanRepository.findById(loan.getId()).get().getActiveBookId()).isEqualTo(loan.getBook().getId());
+
+            loan.setReturned(true);
+            service.update(loan);
+        }
+
+        assertThat(loanRepository.count()).isEqualTo(ROUNDS);
+    }
+}
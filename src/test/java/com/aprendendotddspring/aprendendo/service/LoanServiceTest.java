@@ -2,6 +2,7 @@ package com.aprendendotddspring.aprendendo.service;
 
 import com.aprendendotddspring.aprendendo.api.dto.LoanDTO;
 import com.aprendendotddspring.aprendendo.api.dto.LoanFilterDTO;
+import com.aprendendotddspring.aprendendo.api.dto.ReturnedLoansReportDTO;
 import com.aprendendotddspring.aprendendo.api.exceptions.BusinessException;
 import com.aprendendotddspring.aprendendo.entity.Book;
 import com.aprendendotddspring.aprendendo.entity.Loan;
@@ -13,8 +14,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -22,8 +25,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,10 +71,7 @@ public class LoanServiceTest {
                 .customer(customer)
                 .build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
-
-
-        when(repository.save(savingLoan)).thenReturn(savedLoan);
+        when(repository.saveAndFlush(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = loanService.save(savedLoan);
         //verificação
@@ -93,14 +96,69 @@ public class LoanServiceTest {
                 .loanDate(LocalDate.now())
                 .build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(repository.saveAndFlush(savingLoan)).thenThrow(new DataIntegrityViolationException("unique",
+                new ConstraintViolationException("unique", new SQLException(), "PUBLIC.UK_LOAN_ACTIVE_BOOK_INDEX_2")));
 
         Throwable exception = catchThrowable(() -> loanService.save(savingLoan));
         assertThat(exception).isInstanceOf(BusinessException.class)
                 .hasMessage("Book already loaned");
 
-        verify(repository, never()).save(savingLoan);
+    }
+
+    @Test
+    @DisplayName("Deve devolver varios emprestimos com um unico update")
+    public void returnLoansTest(){
+        when(repository.findExistingIds(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(1L, 3L));
+        when(repository.returnAll(new HashSet<>(Arrays.asList(1L, 3L)))).thenReturn(2);
+
+        ReturnedLoansReportDTO report = loanService.returnLoans(Arrays.asList(1L, 2L, 2L, null, 3L));
+
+        assertThat(report.getReturned()).isEqualTo(2);
+        assertThat(report.getNotFound()).containsExactly(2L);
+        assertThat(report.getAlreadyReturned()).isEmpty();
+        verify(repository, times(1)).returnAll(Mockito.anyCollection());
+        verify(repository, never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve informar os emprestimos ja devolvidos sem conta-los nem atualiza-los")
+    public void returnLoansAlreadyReturnedTest(){
+        when(repository.findExistingIds(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(repository.findReturnedIds(new HashSet<>(Arrays.asList(1L, 2L, 3L)))).thenReturn(Arrays.asList(3L, 1L));
+        when(repository.returnAll(Collections.singleton(2L))).thenReturn(1);
+
+        ReturnedLoansReportDTO report = loanService.returnLoans(Arrays.asList(1L, 2L, 3L));
+
+        assertThat(report.getReturned()).isEqualTo(1);
+        assertThat(report.getNotFound()).isEmpty();
+        assertThat(report.getAlreadyReturned()).containsExactly(1L, 3L);
+        verify(repository, times(1)).returnAll(Collections.singleton(2L));
+    }
+
+    @Test
+    @DisplayName("Não deve executar update quando todos os emprestimos ja estiverem devolvidos")
+    public void returnLoansAllAlreadyReturnedTest(){
+        when(repository.findExistingIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(1L, 2L));
+        when(repository.findReturnedIds(Mockito.anyCollection())).thenReturn(Arrays.asList(1L, 2L));
+
+        ReturnedLoansReportDTO report = loanService.returnLoans(Arrays.asList(1L, 2L));
+
+        assertThat(report.getReturned()).isZero();
+        assertThat(report.getAlreadyReturned()).containsExactly(1L, 2L);
+        verify(repository, never()).returnAll(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Não deve executar update quando nenhum emprestimo existir")
+    public void returnLoansNotFoundTest(){
+        when(repository.findExistingIds(Mockito.anyCollection())).thenReturn(Collections.emptyList());
+
+        ReturnedLoansReportDTO report = loanService.returnLoans(Arrays.asList(1L, 2L));
 
+        assertThat(report.getReturned()).isZero();
+        assertThat(report.getNotFound()).containsExactly(1L, 2L);
+        verify(repository, never()).findReturnedIds(Mockito.anyCollection());
+        verify(repository, never()).returnAll(Mockito.anyCollection());
     }
 
     @Test
@@ -133,12 +191,12 @@ public class LoanServiceTest {
         loan.setId(1l);
         loan.setReturned(true);
 
-        when(repository.save(loan) ).thenReturn(loan);
+        when(repository.saveAndFlush(loan) ).thenReturn(loan);
 
         Loan updatedLoan = loanService.update(loan);
 
         assertThat(updatedLoan.getReturned()).isTrue();
-        verify(repository).save(loan);
+        verify(repository).saveAndFlush(loan);
     }
 
     public Loan createLoan(){
@@ -164,7 +222,7 @@ public class LoanServiceTest {
         List<Loan> lista = Arrays.asList(loan);
 
         Page<Loan> page = new PageImpl<>(lista, pageRequest, 1);
-        when(repository.findByBookIsbnOrCustumer(
+        when(repository.findByIsbnOrCustomer(
                 Mockito.anyString(),
                 Mockito.anyString(),
                 Mockito.any(PageRequest.class)))
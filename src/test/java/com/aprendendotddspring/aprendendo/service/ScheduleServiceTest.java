@@ -0,0 +1,117 @@
+package com.aprendendotddspring.aprendendo.service;
+
+import com.aprendendotddspring.aprendendo.entity.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    ScheduleService scheduleService;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @BeforeEach
+    public void setUp(){
+        this.scheduleService = new ScheduleService(loanService, emailService);
+        ReflectionTestUtils.setField(scheduleService, "mensagem", "devolva o livro");
+        ReflectionTestUtils.setField(scheduleService, "chunkSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por bloco de emprestimos atrasados")
+    public void sendMailsInChunksTest(){
+        when(loanService.getLateLoans(isNull(), eq(2)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(loan(1L, "a@email.com"), loan(2L, "b@email.com")),
+                        PageRequest.of(0, 2), true));
+        when(loanService.getLateLoans(eq(2L), eq(2)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(loan(3L, "c@email.com"), loan(4L, null)),
+                        PageRequest.of(0, 2), false));
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(emailService).sendMails("devolva o livro", Arrays.asList("a@email.com", "b@email.com"));
+        verify(emailService).sendMails("devolva o livro", Collections.singletonList("c@email.com"));
+        verify(loanService, times(2)).getLateLoans(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Não deve enviar email quando não houver emprestimos atrasados")
+    public void noLateLoansTest(){
+        when(loanService.getLateLoans(isNull(), eq(2)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 2), false));
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(emailService, never()).sendMails(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Deve parar com a fila de emails cheia e retomar do ultimo bloco enviado")
+    public void resumeAfterFullMailQueueTest(){
+        when(loanService.getLateLoans(isNull(), eq(2)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(loan(1L, "a@email.com"), loan(2L, "b@email.com")),
+                        PageRequest.of(0, 2), true));
+        when(loanService.getLateLoans(eq(2L), eq(2)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(loan(3L, "c@email.com"), loan(4L, "d@email.com")),
+                        PageRequest.of(0, 2), true));
+        when(loanService.getLateLoans(eq(4L), eq(2)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(loan(5L, "e@email.com")),
+                        PageRequest.of(0, 2), false));
+        doThrow(new RejectedExecutionException("Mail queue still full after 10 ms."))
+                .doNothing()
+                .when(emailService).sendMails("devolva o livro", Arrays.asList("c@email.com", "d@email.com"));
+
+        scheduleService.sendMailToLateLoans();
+
+        verify(loanService, never()).getLateLoans(eq(4L), anyInt());
+        verify(emailService, never()).sendMails("devolva o livro", Collections.singletonList("e@email.com"));
+
+        scheduleService.resumeLateLoans();
+
+        verify(loanService, times(1)).getLateLoans(isNull(), eq(2));
+        verify(emailService, times(1)).sendMails("devolva o livro", Arrays.asList("a@email.com", "b@email.com"));
+        verify(emailService, times(2)).sendMails("devolva o livro", Arrays.asList("c@email.com", "d@email.com"));
+        verify(emailService).sendMails("devolva o livro", Collections.singletonList("e@email.com"));
+
+        scheduleService.resumeLateLoans();
+
+        verify(loanService, times(4)).getLateLoans(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Não deve retomar quando a ultima execução terminou")
+    public void noResumeAfterCompleteRunTest(){
+        when(loanService.getLateLoans(isNull(), eq(2)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(loan(1L, "a@email.com")), PageRequest.of(0, 2), false));
+
+        scheduleService.sendMailToLateLoans();
+        scheduleService.resumeLateLoans();
+
+        verify(loanService, times(1)).getLateLoans(any(), anyInt());
+    }
+
+    private Loan loan(Long id, String email){
+        return Loan.builder().id(id).customerEmail(email).build();
+    }
+}